@@ -26,8 +26,10 @@ package com.yashmerino.online.shop;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OnlineShopServerApplication {
 
     public static void main(String[] args) {
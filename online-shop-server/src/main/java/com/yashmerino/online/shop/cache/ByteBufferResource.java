@@ -0,0 +1,165 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Resource backed by a read-only {@link ByteBuffer}, its content is read without copying the buffer.
+ */
+class ByteBufferResource extends AbstractResource {
+
+    /**
+     * Resource's content.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Resource's description.
+     */
+    private final String description;
+
+    /**
+     * Constructor.
+     *
+     * @param buffer      is the content, its position and limit aren't changed.
+     * @param description is the resource's description.
+     */
+    ByteBufferResource(final ByteBuffer buffer, final String description) {
+        this.buffer = buffer;
+        this.description = description;
+    }
+
+    /**
+     * Returns a new stream over the content.
+     *
+     * @return <code>InputStream</code>
+     */
+    @Override
+    public InputStream getInputStream() {
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    /**
+     * Returns the content's length.
+     *
+     * @return the number of bytes.
+     */
+    @Override
+    public long contentLength() {
+        return buffer.remaining();
+    }
+
+    /**
+     * Returns the resource's description.
+     *
+     * @return <code>String</code>
+     */
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Stream reading a buffer, skips just move the position.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        /**
+         * Read buffer.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Constructor.
+         *
+         * @param buffer is the buffer to read.
+         */
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads the next byte.
+         *
+         * @return the byte or <code>-1</code> at the end of the buffer.
+         */
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        /**
+         * Reads bytes into an array.
+         *
+         * @param bytes  is the destination array.
+         * @param offset is the offset in the array.
+         * @param length is the maximum number of bytes to read.
+         * @return the number of read bytes or <code>-1</code> at the end of the buffer.
+         */
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+
+            return read;
+        }
+
+        /**
+         * Skips bytes by moving the buffer's position.
+         *
+         * @param n is the number of bytes to skip.
+         * @return the number of skipped bytes.
+         */
+        @Override
+        public long skip(final long n) {
+            int skipped = (int) Math.min(Math.max(n, 0), buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+
+            return skipped;
+        }
+
+        /**
+         * Returns the number of bytes left in the buffer.
+         *
+         * @return the number of bytes.
+         */
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
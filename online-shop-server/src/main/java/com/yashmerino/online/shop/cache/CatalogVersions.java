@@ -0,0 +1,125 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.PreconditionFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog-wide versions of the products and categories listings.
+ * Every change of a listing increments its version, so a strong ETag can be computed without reading the database.
+ * The versions live in memory, the startup time is part of the ETag so tags issued before a restart are never reused.
+ * Changes made by other instances aren't seen, so this assumes a single instance serves the catalog.
+ */
+@Component
+public class CatalogVersions {
+
+    /**
+     * Startup time, makes ETags unique across restarts.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    /**
+     * Version of the products listing.
+     */
+    private final AtomicLong productsVersion = new AtomicLong();
+
+    /**
+     * Version of the categories listing.
+     */
+    private final AtomicLong categoriesVersion = new AtomicLong();
+
+    /**
+     * Marks the products listing as changed.
+     */
+    public void productsChanged() {
+        productsVersion.incrementAndGet();
+    }
+
+    /**
+     * Marks the categories listing as changed.
+     */
+    public void categoriesChanged() {
+        categoriesVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns the ETag of the products listing. Products embed their categories, so both versions are part of it.
+     *
+     * @return the ETag.
+     */
+    public String productsETag() {
+        return "\"products-" + epoch + "-" + productsVersion.get() + "-" + categoriesVersion.get() + "\"";
+    }
+
+    /**
+     * Returns the ETag of the categories listing.
+     *
+     * @return the ETag.
+     */
+    public String categoriesETag() {
+        return "\"categories-" + epoch + "-" + categoriesVersion.get() + "\"";
+    }
+
+    /**
+     * Returns the ETag of a product.
+     *
+     * @param id      is the product's id.
+     * @param version is the product's version.
+     * @return the ETag.
+     */
+    public static String productETag(final String id, final long version) {
+        return "\"product-" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Extracts the product's version from an <code>If-Match</code> header value.
+     *
+     * @param id      is the product's id.
+     * @param ifMatch is the header's value, can be <code>null</code>.
+     * @return the version or <code>null</code> if the header is absent or is <code>*</code>.
+     * @throws PreconditionFailedException if the header doesn't match the product.
+     */
+    public static Long productVersionFromIfMatch(final Long id, final String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String prefix = "\"product-" + id + "-";
+        String value = ifMatch.trim();
+
+        if (value.startsWith(prefix) && value.endsWith("\"")) {
+            try {
+                return Long.valueOf(value.substring(prefix.length(), value.length() - 1));
+            } catch (NumberFormatException e) {
+                // Falls through to the exception below.
+            }
+        }
+
+        throw new PreconditionFailedException("product_modified");
+    }
+}
@@ -0,0 +1,269 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yashmerino.online.shop.model.Category;
+import com.yashmerino.online.shop.model.dto.CategoryDTO;
+import com.yashmerino.online.shop.repositories.CategoryRepository;
+import com.yashmerino.online.shop.utils.RequestBodyToEntityConverter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In-memory catalog of the categories.
+ * The categories are read once and kept together with the serialized JSON of the categories list,
+ * so they can be served and attached to products without querying the categories' table.
+ * Call {@link #refresh()} after categories are changed in the database, it's never called while products are loaded.
+ */
+@Component
+public class CategoryCatalog {
+
+    /**
+     * Categories' repository.
+     */
+    private final CategoryRepository categoryRepository;
+
+    /**
+     * Object mapper used to serialize the categories.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Product cache, cached products hold categories of the catalog.
+     */
+    private final ProductCache productCache;
+
+    /**
+     * Catalog versions.
+     */
+    private final CatalogVersions catalogVersions;
+
+    /**
+     * Current snapshot or <code>null</code> if the catalog wasn't loaded yet.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructor.
+     *
+     * @param categoryRepository is the categories' repository.
+     * @param objectMapper       is the object mapper.
+     * @param productCache       is the product cache.
+     * @param catalogVersions    is the catalog versions.
+     */
+    public CategoryCatalog(CategoryRepository categoryRepository, ObjectMapper objectMapper, ProductCache productCache, CatalogVersions catalogVersions) {
+        this.categoryRepository = categoryRepository;
+        this.objectMapper = objectMapper;
+        this.productCache = productCache;
+        this.catalogVersions = catalogVersions;
+    }
+
+    /**
+     * Loads the catalog once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (snapshot == null) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reloads the categories from the database.
+     */
+    public synchronized void refresh() {
+        snapshot = new Snapshot(categoryRepository.findAll());
+        productCache.invalidateAll();
+        catalogVersions.categoriesChanged();
+    }
+
+    /**
+     * Returns all the categories.
+     *
+     * @return an unmodifiable list of categories.
+     */
+    public List<Category> getCategories() {
+        return getSnapshot().categories;
+    }
+
+    /**
+     * Returns the JSON of the categories list. The array is shared and must not be modified.
+     *
+     * @return the JSON as UTF-8 bytes.
+     */
+    public byte[] getCategoriesJson() {
+        return getSnapshot().json;
+    }
+
+    /**
+     * Returns the catalog's instance of a category.
+     * An unknown category is read alone and added to the catalog, e.g. it was created on another instance.
+     * The cached products and the versions are left untouched, because it's called while products are loaded into the product cache.
+     *
+     * @param id is the category's id.
+     * @return the category or <code>null</code> if it doesn't exist.
+     */
+    public Category getCategory(final Long id) {
+        Category category = getSnapshot().categoriesById.get(id);
+
+        if (category == null) {
+            synchronized (this) {
+                category = snapshot.categoriesById.get(id);
+
+                if (category == null) {
+                    category = categoryRepository.findById(id).orElse(null);
+
+                    if (category != null) {
+                        snapshot = snapshot.with(category);
+                    }
+                }
+            }
+        }
+
+        return category;
+    }
+
+    /**
+     * Replaces the passed categories with the catalog's instances.
+     *
+     * @param categories are the categories, can be <code>null</code>.
+     * @return the catalog's categories or <code>null</code> if nothing was passed.
+     */
+    public Set<Category> resolve(final Set<Category> categories) {
+        if (categories == null) {
+            return null;
+        }
+
+        Set<Category> resolved = new LinkedHashSet<>();
+
+        for (Category category : categories) {
+            Category cached = getCategory(category.getId());
+            resolved.add(cached != null ? cached : category);
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Returns the current snapshot, loading it if needed.
+     *
+     * @return the snapshot.
+     */
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = new Snapshot(categoryRepository.findAll());
+                }
+
+                current = snapshot;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Immutable state of the catalog.
+     */
+    private final class Snapshot {
+
+        /**
+         * Categories ordered by id.
+         */
+        private final List<Category> categories;
+
+        /**
+         * Categories by id.
+         */
+        private final Map<Long, Category> categoriesById;
+
+        /**
+         * Serialized categories list.
+         */
+        private final byte[] json;
+
+        /**
+         * Constructor.
+         *
+         * @param categories are the loaded categories.
+         */
+        private Snapshot(List<Category> categories) {
+            List<Category> sorted = new ArrayList<>(categories);
+            sorted.sort(Comparator.comparing(Category::getId));
+
+            Map<Long, Category> byId = new HashMap<>();
+            List<CategoryDTO> categoriesDTO = new ArrayList<>();
+
+            for (Category category : sorted) {
+                byId.put(category.getId(), category);
+                categoriesDTO.add(RequestBodyToEntityConverter.convertToCategoryDTO(category));
+            }
+
+            this.categories = Collections.unmodifiableList(sorted);
+            this.categoriesById = Collections.unmodifiableMap(byId);
+
+            try {
+                this.json = objectMapper.writeValueAsBytes(categoriesDTO);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Couldn't serialize the categories.", e);
+            }
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param categories     are the categories ordered by id.
+         * @param categoriesById are the categories by id.
+         * @param json           is the serialized categories list.
+         */
+        private Snapshot(List<Category> categories, Map<Long, Category> categoriesById, byte[] json) {
+            this.categories = categories;
+            this.categoriesById = categoriesById;
+            this.json = json;
+        }
+
+        /**
+         * Returns a snapshot that also resolves the passed category.
+         * The categories list isn't changed, it picks the category up on the next refresh.
+         *
+         * @param category is the category.
+         * @return the new snapshot.
+         */
+        private Snapshot with(Category category) {
+            Map<Long, Category> byId = new HashMap<>(categoriesById);
+            byId.put(category.getId(), category);
+
+            return new Snapshot(categories, Collections.unmodifiableMap(byId), json);
+        }
+    }
+}
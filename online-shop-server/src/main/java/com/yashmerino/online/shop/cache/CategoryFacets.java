@@ -0,0 +1,139 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.model.Category;
+import com.yashmerino.online.shop.model.dto.CategoryFacetDTO;
+import com.yashmerino.online.shop.model.projections.CategoryCount;
+import com.yashmerino.online.shop.repositories.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached number of products per category.
+ * The counts are computed with a single grouped query over the products/categories join table
+ * and are recomputed on the first read after the products or the categories change.
+ */
+@Component
+public class CategoryFacets {
+
+    /**
+     * Products' repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Categories' catalog.
+     */
+    private final CategoryCatalog categoryCatalog;
+
+    /**
+     * Catalog's versions.
+     */
+    private final CatalogVersions catalogVersions;
+
+    /**
+     * Last computed facets or <code>null</code> if they weren't computed yet.
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructor.
+     *
+     * @param productRepository is the products' repository.
+     * @param categoryCatalog   is the categories' catalog.
+     * @param catalogVersions   is the catalog's versions.
+     */
+    public CategoryFacets(ProductRepository productRepository, CategoryCatalog categoryCatalog, CatalogVersions catalogVersions) {
+        this.productRepository = productRepository;
+        this.categoryCatalog = categoryCatalog;
+        this.catalogVersions = catalogVersions;
+    }
+
+    /**
+     * Returns the number of products in every category, in the catalog's order.
+     *
+     * @return List of CategoryFacetDTOs.
+     */
+    public List<CategoryFacetDTO> getFacets() {
+        // The products' ETag covers the categories too.
+        String version = catalogVersions.productsETag();
+        Snapshot current = snapshot;
+
+        if (current == null || !current.version.equals(version)) {
+            synchronized (this) {
+                current = snapshot;
+
+                if (current == null || !current.version.equals(version)) {
+                    // The version is read before the query, a change during the query triggers another recompute.
+                    current = new Snapshot(version, compute());
+                    snapshot = current;
+                }
+            }
+        }
+
+        return current.facets;
+    }
+
+    /**
+     * Counts the products in every category.
+     *
+     * @return List of CategoryFacetDTOs.
+     */
+    private List<CategoryFacetDTO> compute() {
+        Map<Long, Long> counts = new HashMap<>();
+
+        for (CategoryCount count : productRepository.countByCategory()) {
+            counts.put(count.getCategoryId(), count.getProducts());
+        }
+
+        return categoryCatalog.getCategories().stream()
+                .map(category -> toFacet(category, counts.getOrDefault(category.getId(), 0L)))
+                .toList();
+    }
+
+    /**
+     * Builds a facet.
+     *
+     * @param category is the category.
+     * @param count    is the number of products.
+     * @return <code>CategoryFacetDTO</code>
+     */
+    private static CategoryFacetDTO toFacet(final Category category, final long count) {
+        return new CategoryFacetDTO(category.getId(), category.getName(), count);
+    }
+
+    /**
+     * Computed facets.
+     *
+     * @param version is the products' ETag they were computed from.
+     * @param facets  are the facets.
+     */
+    private record Snapshot(String version, List<CategoryFacetDTO> facets) {
+    }
+}
@@ -0,0 +1,268 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.storage.PhotoStorage;
+import com.yashmerino.online.shop.storage.StoredPhoto;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of the most requested photos, the content is kept in direct buffers outside the heap.
+ * Photos are content addressed, so a cached photo never becomes stale, it's just evicted when it stops being requested.
+ */
+@Component
+public class PhotoCache {
+
+    /**
+     * Cache's name used in metrics.
+     */
+    private static final String CACHE_NAME = "photos";
+
+    /**
+     * Cached photos by hash and requested size, in access order.
+     */
+    private final LinkedHashMap<String, CachedPhoto> photos = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Whether the cache is enabled.
+     */
+    private final boolean isEnabled;
+
+    /**
+     * Maximum number of cached bytes.
+     */
+    private final long capacity;
+
+    /**
+     * Maximum size of a cached photo, bigger photos are always streamed from the storage.
+     */
+    private final long maxEntrySize;
+
+    /**
+     * Number of cached bytes.
+     */
+    private long usedBytes;
+
+    /**
+     * Number of requests served from the cache.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Number of requests served from the storage.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Number of evicted photos.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties is the application's properties.
+     * @param meterRegistry         is the meter registry.
+     */
+    public PhotoCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.isEnabled = applicationProperties.isPhotoCacheEnabled;
+        this.capacity = applicationProperties.photoCacheMaxSize.toBytes();
+        this.maxEntrySize = Math.min(applicationProperties.photoCacheMaxEntrySize.toBytes(), this.capacity);
+
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tag("cache", CACHE_NAME).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tag("cache", CACHE_NAME).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tag("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("cache.size", this, PhotoCache::size).tag("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("photo.cache.used", this, PhotoCache::usedBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("photo.cache.capacity", this, cache -> cache.capacity).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("photo.cache.hit.ratio", this, PhotoCache::hitRatio).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached photo or loads it.
+     * Only final photos are cached, a thumbnail that is still being generated is loaded every time.
+     * Photos are keyed by the resolved thumbnail size, so the requested sizes served by the same thumbnail share one entry.
+     *
+     * @param hash   is the photo's hash.
+     * @param size   is the requested thumbnail size or <code>null</code> for the original.
+     * @param loader is the function that loads the photo from the storage on a miss.
+     * @return <code>StoredPhoto</code>
+     */
+    public StoredPhoto get(final String hash, final Integer size, final Supplier<StoredPhoto> loader) {
+        if (!isEnabled) {
+            return loader.get();
+        }
+
+        Integer resolvedSize = PhotoStorage.resolveThumbnailSize(size);
+        String key = resolvedSize == null ? hash : hash + "@" + resolvedSize;
+        CachedPhoto cached;
+
+        synchronized (this) {
+            cached = photos.get(key);
+        }
+
+        if (cached != null) {
+            hits.increment();
+
+            return cached.toStoredPhoto();
+        }
+
+        misses.increment();
+        StoredPhoto photo = loader.get();
+
+        if (!photo.isFinal()) {
+            return photo;
+        }
+
+        // Loaded outside the lock, concurrent misses for the same photo just read it twice.
+        cached = read(photo);
+
+        if (cached == null) {
+            return photo;
+        }
+
+        put(key, cached);
+
+        return cached.toStoredPhoto();
+    }
+
+    /**
+     * Returns the number of cached photos.
+     *
+     * @return the number of photos.
+     */
+    public synchronized int size() {
+        return photos.size();
+    }
+
+    /**
+     * Returns the number of cached bytes.
+     *
+     * @return the number of bytes.
+     */
+    public synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the share of the requests served from the cache.
+     *
+     * @return the hit ratio, <code>0</code> if there were no requests.
+     */
+    public double hitRatio() {
+        long hitCount = hits.sum();
+        long requestCount = hitCount + misses.sum();
+
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * Stores a photo and evicts the least recently used ones until it fits.
+     *
+     * @param key    is the photo's key.
+     * @param cached is the photo.
+     */
+    private synchronized void put(final String key, final CachedPhoto cached) {
+        CachedPhoto previous = photos.put(key, cached);
+
+        if (previous != null) {
+            usedBytes -= previous.content().capacity();
+        }
+
+        usedBytes += cached.content().capacity();
+
+        Iterator<CachedPhoto> iterator = photos.values().iterator();
+
+        while (usedBytes > capacity && iterator.hasNext()) {
+            usedBytes -= iterator.next().content().capacity();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Reads a photo into a direct buffer.
+     *
+     * @param photo is the photo.
+     * @return <code>CachedPhoto</code> or <code>null</code> if the photo is too big to be cached.
+     */
+    private CachedPhoto read(final StoredPhoto photo) {
+        try {
+            long length = photo.content().contentLength();
+
+            if (length > maxEntrySize) {
+                return null;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+
+            try (ReadableByteChannel channel = photo.content().readableChannel()) {
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                    // Reads until the buffer is full.
+                }
+            }
+
+            buffer.flip();
+
+            return new CachedPhoto(photo, buffer.asReadOnlyBuffer());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Cached photo.
+     *
+     * @param photo   is the photo as loaded from the storage.
+     * @param content is the photo's content.
+     */
+    private record CachedPhoto(StoredPhoto photo, ByteBuffer content) {
+
+        /**
+         * Returns the photo served from the cached content.
+         *
+         * @return <code>StoredPhoto</code>
+         */
+        StoredPhoto toStoredPhoto() {
+            ByteBufferResource resource = new ByteBufferResource(content, "cached photo [" + photo.eTag() + "]");
+
+            return new StoredPhoto(photo.hash(), photo.size(), resource, photo.mediaType(), photo.isFinal());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yashmerino.online.shop.model.dto.ProductDTO;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of products keyed by id.
+ * It keeps {@link ProductDTO} snapshots instead of entities, so cached values are never attached to a persistence context.
+ * Hits, misses and evictions are published as the <code>cache.*</code> metrics with the <code>cache=products</code> tag.
+ */
+@Component
+public class ProductCache {
+
+    /**
+     * Cache's name used in metrics.
+     */
+    private static final String CACHE_NAME = "products";
+
+    /**
+     * Cached products or <code>null</code> if the cache is disabled.
+     */
+    private final Cache<Long, ProductDTO> cache;
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties is the application's properties.
+     * @param meterRegistry         is the meter registry.
+     */
+    public ProductCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        if (applicationProperties.isProductCacheEnabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(applicationProperties.productCacheMaxSize)
+                    .expireAfterWrite(applicationProperties.productCacheTtl)
+                    .recordStats()
+                    .build();
+
+            CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Returns the cached product or loads it.
+     *
+     * @param id     is the product's id.
+     * @param loader is the function that loads the product on a miss.
+     * @return <code>ProductDTO</code>
+     */
+    public ProductDTO get(final Long id, final Function<Long, ProductDTO> loader) {
+        if (cache == null) {
+            return loader.apply(id);
+        }
+
+        return cache.get(id, loader);
+    }
+
+    /**
+     * Returns the cached product without loading it.
+     *
+     * @param id is the product's id.
+     * @return <code>ProductDTO</code> or <code>null</code> if it isn't cached.
+     */
+    public ProductDTO getIfPresent(final Long id) {
+        if (cache == null) {
+            return null;
+        }
+
+        return cache.getIfPresent(id);
+    }
+
+    /**
+     * Stores a product.
+     *
+     * @param productDTO is the product to store.
+     */
+    public void put(final ProductDTO productDTO) {
+        if (cache != null) {
+            cache.put(Long.valueOf(productDTO.getId()), productDTO);
+        }
+    }
+
+    /**
+     * Removes a product.
+     *
+     * @param id is the product's id.
+     */
+    public void invalidate(final Long id) {
+        if (cache != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Removes all the products.
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.repositories.ProductRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintained numbers of products, globally and per seller, used for approximate totals.
+ * A counter is seeded with a count query on its first use and is then kept up to date by product inserts and deletes,
+ * so it can drift when products are changed by other instances or concurrently with the seeding.
+ */
+@Component
+public class ProductCounters {
+
+    /**
+     * Products' repository.
+     */
+    private final ProductRepository productRepository;
+
+    /**
+     * Number of products or <code>null</code> if it wasn't seeded yet.
+     */
+    private volatile AtomicLong total;
+
+    /**
+     * Number of products by seller's id.
+     */
+    private final Map<Long, AtomicLong> sellers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param productRepository is the products' repository.
+     */
+    public ProductCounters(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Returns the approximate number of products.
+     *
+     * @return the number of products.
+     */
+    public long getTotal() {
+        AtomicLong current = total;
+
+        if (current == null) {
+            synchronized (this) {
+                if (total == null) {
+                    total = new AtomicLong(productRepository.count());
+                }
+
+                current = total;
+            }
+        }
+
+        return Math.max(current.get(), 0);
+    }
+
+    /**
+     * Returns the approximate number of the seller's products.
+     *
+     * @param sellerId is the seller's id.
+     * @return the number of products.
+     */
+    public long getSellerTotal(final Long sellerId) {
+        return Math.max(sellers.computeIfAbsent(sellerId, id -> new AtomicLong(productRepository.countByUserId(id))).get(), 0);
+    }
+
+    /**
+     * Counts a new product.
+     *
+     * @param sellerId is the seller's id.
+     */
+    public void productAdded(final Long sellerId) {
+        update(sellerId, 1);
+    }
+
+    /**
+     * Counts a deleted product.
+     *
+     * @param sellerId is the seller's id.
+     */
+    public void productDeleted(final Long sellerId) {
+        update(sellerId, -1);
+    }
+
+    /**
+     * Updates the seeded counters, counters that weren't seeded yet will read the change from the database.
+     *
+     * @param sellerId is the seller's id.
+     * @param delta    is the change.
+     */
+    private void update(final Long sellerId, final long delta) {
+        AtomicLong current = total;
+
+        if (current != null) {
+            current.addAndGet(delta);
+        }
+
+        AtomicLong seller = sellers.get(sellerId);
+
+        if (seller != null) {
+            seller.addAndGet(delta);
+        }
+    }
+}
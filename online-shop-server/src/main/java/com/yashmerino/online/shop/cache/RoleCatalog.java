@@ -0,0 +1,77 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.model.Role;
+import com.yashmerino.online.shop.repositories.RoleRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of the roles by name. The roles never change at runtime, so each one is looked up once
+ * and the users get a reference to it without querying the roles table.
+ */
+@Component
+public class RoleCatalog {
+
+    /**
+     * Roles' repository.
+     */
+    private final RoleRepository roleRepository;
+
+    /**
+     * Roles' ids by name.
+     */
+    private final Map<String, Long> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param roleRepository is the roles' repository.
+     */
+    public RoleCatalog(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * Returns a reference to a role.
+     *
+     * @param role is the role.
+     * @return <code>Role</code>
+     * @throws EntityNotFoundException if the role doesn't exist.
+     */
+    public Role getRole(final com.yashmerino.online.shop.utils.Role role) {
+        Long id = ids.computeIfAbsent(role.name(), name -> roleRepository.findByName(name).map(Role::getId).orElse(null));
+
+        if (id == null) {
+            throw new EntityNotFoundException("role_not_found");
+        }
+
+        return roleRepository.getReferenceById(id);
+    }
+}
@@ -0,0 +1,315 @@
+package com.yashmerino.online.shop.cache;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.repositories.UserRepository;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of the taken usernames. A username the filter doesn't contain is certainly free,
+ * so only the usernames it might contain have to be checked in the database.
+ * It's built once the application has started and rebuilt periodically to pick up the users registered on other instances,
+ * until it's built every username might be taken.
+ * Usernames are compared case-insensitively, like the unique index of the users' table.
+ */
+@Component
+@Slf4j
+public class UsernameFilter {
+
+    /**
+     * Number of usernames read with one query while building.
+     */
+    private static final int BUILD_PAGE_SIZE = 10000;
+
+    /**
+     * Users' repository.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Number of usernames the filter is sized for.
+     */
+    private final long expectedSize;
+
+    /**
+     * Wanted false positive rate at the expected size.
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * Checks answered without the database.
+     */
+    private final Counter absent;
+
+    /**
+     * Checks that need the database.
+     */
+    private final Counter maybe;
+
+    /**
+     * Checks that needed the database although the username was free.
+     */
+    private final Counter falsePositives;
+
+    /**
+     * Current filter or <code>null</code> if it isn't built yet.
+     */
+    private volatile Bits bits;
+
+    /**
+     * Filter that is being built, the usernames added meanwhile are added to it as well.
+     */
+    private volatile Bits building;
+
+    /**
+     * Constructor.
+     *
+     * @param userRepository        is the users' repository.
+     * @param applicationProperties is the application's properties.
+     * @param meterRegistry         is the meter registry.
+     */
+    public UsernameFilter(UserRepository userRepository, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.expectedSize = applicationProperties.usernameFilterExpectedSize;
+        this.falsePositiveRate = applicationProperties.usernameFilterFalsePositiveRate;
+
+        this.absent = Counter.builder("username.filter.checks").tag("result", "absent").register(meterRegistry);
+        this.maybe = Counter.builder("username.filter.checks").tag("result", "maybe").register(meterRegistry);
+        this.falsePositives = Counter.builder("username.filter.false.positives").register(meterRegistry);
+    }
+
+    /**
+     * Builds the filter once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (bits == null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds the filter again from the database.
+     */
+    @Scheduled(initialDelayString = "${username.filter.rebuild-interval:PT10M}", fixedDelayString = "${username.filter.rebuild-interval:PT10M}")
+    public synchronized void rebuild() {
+        long count = userRepository.count();
+        Bits next = new Bits(Math.max(expectedSize, count * 2), falsePositiveRate);
+        building = next;
+
+        String after = "";
+        List<String> usernames;
+
+        do {
+            usernames = userRepository.findUsernamesAfter(after, PageRequest.of(0, BUILD_PAGE_SIZE));
+            usernames.forEach(next::put);
+
+            if (!usernames.isEmpty()) {
+                after = usernames.get(usernames.size() - 1);
+            }
+        } while (usernames.size() == BUILD_PAGE_SIZE);
+
+        bits = next;
+        building = null;
+
+        log.debug("Username filter was built with {} usernames.", count);
+    }
+
+    /**
+     * Checks if a username might be taken.
+     *
+     * @param username is the username.
+     * @return <code>false</code> if the username is certainly free, <code>true</code> if it has to be checked in the database.
+     */
+    public boolean mightContain(final String username) {
+        Bits current = bits;
+
+        if (current != null && !current.mightContain(username)) {
+            absent.increment();
+
+            return false;
+        }
+
+        maybe.increment();
+
+        return true;
+    }
+
+    /**
+     * Adds a taken username.
+     *
+     * @param username is the username.
+     */
+    public void put(final String username) {
+        Bits current = bits;
+        Bits next = building;
+
+        if (current != null) {
+            current.put(username);
+        }
+
+        if (next != null) {
+            next.put(username);
+        }
+    }
+
+    /**
+     * Normalizes a username, the usernames that differ only by case are the same username.
+     *
+     * @param username is the username.
+     * @return the normalized username.
+     */
+    public static String normalize(final String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Records that the database found a username free although the filter might have contained it.
+     */
+    public void falsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * Bit array of a Bloom filter. The bits are only ever set, so it's safe to share without locking.
+     */
+    private static final class Bits {
+
+        /**
+         * Bits, 64 per element.
+         */
+        private final AtomicLongArray words;
+
+        /**
+         * Number of bits.
+         */
+        private final long size;
+
+        /**
+         * Number of bits set per username.
+         */
+        private final int hashes;
+
+        /**
+         * Constructor.
+         *
+         * @param expectedSize      is the number of usernames the filter is sized for.
+         * @param falsePositiveRate is the wanted false positive rate at the expected size.
+         */
+        Bits(final long expectedSize, final double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8L, Math.max(1, (bits + 63) / 64));
+
+            this.words = new AtomicLongArray(words);
+            this.size = words * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / expectedSize * Math.log(2)));
+        }
+
+        /**
+         * Sets the bits of a username.
+         *
+         * @param username is the username.
+         */
+        void put(final String username) {
+            long hash1 = hash(username);
+            long hash2 = mix(hash1) | 1;
+
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value = words.get(word);
+
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+        }
+
+        /**
+         * Checks the bits of a username.
+         *
+         * @param username is the username.
+         * @return <code>false</code> if any of the username's bits is clear.
+         */
+        boolean mightContain(final String username) {
+            long hash1 = hash(username);
+            long hash2 = mix(hash1) | 1;
+
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * Hashes a normalized username with 64-bit FNV-1a.
+         *
+         * @param username is the username.
+         * @return the hash.
+         */
+        private static long hash(final String username) {
+            long hash = 0xcbf29ce484222325L;
+
+            for (byte b : normalize(username).getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+
+            return mix(hash);
+        }
+
+        /**
+         * Mixes the bits of a hash, it derives the second hash of the double hashing.
+         *
+         * @param hash is the hash.
+         * @return the mixed hash.
+         */
+        private static long mix(long hash) {
+            hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+            hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+
+            return hash ^ (hash >>> 31);
+        }
+    }
+}
@@ -27,7 +27,9 @@ package com.yashmerino.online.shop.controllers;
 import com.yashmerino.online.shop.model.dto.SuccessDTO;
 import com.yashmerino.online.shop.model.dto.auth.AuthResponseDTO;
 import com.yashmerino.online.shop.model.dto.auth.LoginDTO;
+import com.yashmerino.online.shop.model.dto.auth.RefreshTokenDTO;
 import com.yashmerino.online.shop.model.dto.auth.RegisterDTO;
+import com.yashmerino.online.shop.model.dto.auth.UsernameAvailabilityDTO;
 import com.yashmerino.online.shop.services.interfaces.AuthService;
 import com.yashmerino.online.shop.swagger.SwaggerConfig;
 import com.yashmerino.online.shop.swagger.SwaggerHttpStatus;
@@ -42,13 +44,16 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -101,6 +106,26 @@ public class AuthController {
         return new ResponseEntity<>(successDTO, HttpStatus.OK);
     }
 
+    /**
+     * Checks if a username is available.
+     *
+     * @param username is the username.
+     * @return <code>ResponseEntity</code>
+     */
+    @Operation(summary = "Checks if a username is available for registration.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.USERNAME_AVAILABILITY_RETURNED,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = UsernameAvailabilityDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @GetMapping("/username-available")
+    public ResponseEntity<UsernameAvailabilityDTO> isUsernameAvailable(@Parameter(description = "Username to check.") @RequestParam String username) {
+        UsernameAvailabilityDTO availabilityDTO = new UsernameAvailabilityDTO(username, authService.isUsernameAvailable(username));
+
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(availabilityDTO);
+    }
+
     /**
      * Login for user.
      *
@@ -118,8 +143,50 @@ public class AuthController {
                     content = @Content)})
     @PostMapping("/login")
     public ResponseEntity<AuthResponseDTO> login(@Parameter(description = "JSON Object for user's credentials.") @Valid @RequestBody LoginDTO loginDTO) {
-        String token = authService.login(loginDTO);
+        return new ResponseEntity<>(authService.login(loginDTO), HttpStatus.OK);
+    }
+
+    /**
+     * Exchanges a refresh token for a new JWT Token.
+     *
+     * @param refreshTokenDTO is the refresh token DTO.
+     * @return <code>ResponseEntity</code>
+     */
+    @Operation(summary = "Exchanges a refresh token for a new JWT Token and a new refresh token.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.TOKEN_REFRESHED,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = AuthResponseDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.UNAUTHORIZED, description = SwaggerMessages.INVALID_REFRESH_TOKEN,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponseDTO> refresh(@Parameter(description = "JSON Object with the refresh token.") @Valid @RequestBody RefreshTokenDTO refreshTokenDTO) {
+        return new ResponseEntity<>(authService.refresh(refreshTokenDTO), HttpStatus.OK);
+    }
 
-        return new ResponseEntity<>(new AuthResponseDTO(token), HttpStatus.OK);
+    /**
+     * Logouts the user, all the user's tokens are revoked.
+     *
+     * @return <code>ResponseEntity</code>
+     */
+    @Operation(summary = "Logouts the user and revokes all his JWT Tokens.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.USER_LOGGED_OUT,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.UNAUTHORIZED, description = SwaggerMessages.UNAUTHORIZED,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @PostMapping("/logout")
+    public ResponseEntity<SuccessDTO> logout() {
+        authService.logout();
+
+        SuccessDTO successDTO = new SuccessDTO();
+        successDTO.setStatus(200);
+        successDTO.setMessage("user_logged_out_successfully");
+
+        return new ResponseEntity<>(successDTO, HttpStatus.OK);
     }
 }
@@ -23,15 +23,18 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.fields.SparseFields;
 import com.yashmerino.online.shop.model.CartItem;
 import com.yashmerino.online.shop.model.dto.CartItemDTO;
 import com.yashmerino.online.shop.model.dto.PaginatedDTO;
 import com.yashmerino.online.shop.model.dto.SuccessDTO;
+import com.yashmerino.online.shop.model.projections.CartItemSummary;
 import com.yashmerino.online.shop.services.interfaces.CartItemService;
 import com.yashmerino.online.shop.swagger.SwaggerConfig;
 import com.yashmerino.online.shop.swagger.SwaggerHttpStatus;
 import com.yashmerino.online.shop.swagger.SwaggerMessages;
 import com.yashmerino.online.shop.utils.RequestBodyToEntityConverter;
+import com.yashmerino.online.shop.utils.TotalMode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -41,8 +44,8 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.Min;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -138,7 +141,8 @@ public class CartItemController {
     /**
      * Returns a cart item.
      *
-     * @param id is the cart item's id.
+     * @param id     is the cart item's id.
+     * @param fields is the comma separated list of fields to return, every field by default.
      * @return <code>ResponseEntity</code>
      * @throws EntityNotFoundException if cart item couldn't be found.
      */
@@ -156,7 +160,9 @@ public class CartItemController {
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping("/{id}")
-    public ResponseEntity<CartItemDTO> getCartItem(@PathVariable Long id) {
+    public ResponseEntity<CartItemDTO> getCartItem(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        // The cart item is loaded for the ownership check anyway, the fields are applied when the response is serialized.
+        SparseFields.forCartItem(fields);
         CartItem cartItem = cartItemService.getCartItem(id);
         CartItemDTO cartItemDTO = RequestBodyToEntityConverter.convertToCartItemDTO(cartItem);
 
@@ -166,7 +172,10 @@ public class CartItemController {
     /**
      * Returns all the cart items.
      *
-     * @param username is the user's username.
+     * @param username     is the user's username.
+     * @param includeTotal is <code>exact</code> (default), <code>approx</code> or <code>false</code> to skip the totals.
+     * @param fields       is the comma separated list of fields to return, every field by default.
+     * @param pageable     is the page details.
      * @return <code>List of CartItems</code>
      */
     @Operation(summary = "Returns all the items from the cart.")
@@ -182,21 +191,15 @@ public class CartItemController {
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping
-    public PaginatedDTO<CartItemDTO> getCartItems(@RequestParam String username, Pageable pageable) {
-        Page<CartItem> page = cartItemService.getCartItems(username, pageable);
+    public PaginatedDTO<CartItemDTO> getCartItems(@RequestParam String username, @RequestParam(defaultValue = "exact") String includeTotal,
+                                                  @RequestParam(required = false) String fields, Pageable pageable) {
+        Slice<CartItemSummary> slice = cartItemService.getCartItems(username, pageable, TotalMode.parse(includeTotal), SparseFields.forCartItem(fields));
 
-        List<CartItemDTO> items = page.getContent().stream()
+        List<CartItemDTO> items = slice.getContent().stream()
                 .map(RequestBodyToEntityConverter::convertToCartItemDTO)
                 .toList();
 
-        PaginatedDTO<CartItemDTO> paginated = new PaginatedDTO<>();
-        paginated.setData(items);
-        paginated.setCurrentPage(page.getNumber());
-        paginated.setTotalPages(page.getTotalPages());
-        paginated.setTotalItems(page.getTotalElements());
-        paginated.setPageSize(page.getSize());
-        paginated.setHasNext(page.hasNext());
-        paginated.setHasPrevious(page.hasPrevious());
+        PaginatedDTO<CartItemDTO> paginated = PaginatedDTO.buildPaginatedResponse(slice, items);
 
         double totalPrice = cartItemService.getTotalCartPrice(username);
         paginated.setTotalPrice(totalPrice);
@@ -23,27 +23,29 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
-import com.yashmerino.online.shop.model.Category;
+import com.yashmerino.online.shop.cache.CatalogVersions;
 import com.yashmerino.online.shop.model.dto.CategoryDTO;
+import com.yashmerino.online.shop.model.dto.SuccessDTO;
 import com.yashmerino.online.shop.services.interfaces.CategoryService;
 import com.yashmerino.online.shop.swagger.SwaggerConfig;
 import com.yashmerino.online.shop.swagger.SwaggerHttpStatus;
 import com.yashmerino.online.shop.swagger.SwaggerMessages;
-import com.yashmerino.online.shop.utils.RequestBodyToEntityConverter;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.util.ArrayList;
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 /**
  * Controller for categories.
@@ -59,35 +61,72 @@ public class CategoryController {
      */
     private CategoryService categoryService;
 
+    /**
+     * Catalog versions.
+     */
+    private final CatalogVersions catalogVersions;
+
     /**
      * Constructor.
      *
      * @param categoryService is the categories' service.
+     * @param catalogVersions is the catalog versions.
      */
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersions catalogVersions) {
         this.categoryService = categoryService;
+        this.catalogVersions = catalogVersions;
     }
 
     /**
-     * Retrieves all the categories.
+     * Retrieves all the categories. The JSON is serialized once by the catalog and written as is.
      *
-     * @return <code>Set of Categories</code>
+     * @param webRequest is the web request, used to check the ETag.
+     * @return <code>JSON array of Categories</code>
      */
     @Operation(summary = "Retrieves all the categories.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.CATEGORIES_SUCCESSFULLY_RETRIEVED,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = CategoryDTO.class)))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
                     content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getCategories() {
-        List<Category> categories = categoryService.getCategories();
-        List<CategoryDTO> categoriesDTO = new ArrayList<>();
-
-        for (Category category : categories) {
-            categoriesDTO.add(RequestBodyToEntityConverter.convertToCategoryDTO(category));
+    public ResponseEntity<byte[]> getCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.categoriesETag())) {
+            return null;
         }
 
-        return new ResponseEntity<>(categoriesDTO, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(categoryService.getCategoriesJson());
+    }
+
+    /**
+     * Reloads the categories after they were changed in the database.
+     *
+     * @return <code>ResponseEntity</code>
+     */
+    @Operation(summary = "Reloads the categories.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.CATEGORIES_SUCCESSFULLY_REFRESHED,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = SuccessDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.FORBIDDEN, description = SwaggerMessages.FORBIDDEN,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.UNAUTHORIZED, description = SwaggerMessages.UNAUTHORIZED,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @PostMapping("/refresh")
+    public ResponseEntity<SuccessDTO> refreshCategories() {
+        categoryService.refreshCategories();
+
+        SuccessDTO successDTO = new SuccessDTO();
+        successDTO.setStatus(200);
+        successDTO.setMessage("categories_refreshed_successfully");
+
+        return new ResponseEntity<>(successDTO, HttpStatus.OK);
     }
 }
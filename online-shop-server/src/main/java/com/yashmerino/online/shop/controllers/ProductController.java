@@ -23,9 +23,11 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
-import com.yashmerino.online.shop.model.CartItem;
-import com.yashmerino.online.shop.model.Product;
+import com.yashmerino.online.shop.cache.CatalogVersions;
+import com.yashmerino.online.shop.exceptions.InvalidInputException;
+import com.yashmerino.online.shop.fields.SparseFields;
 import com.yashmerino.online.shop.model.dto.*;
+import com.yashmerino.online.shop.model.projections.ProductSummary;
 import com.yashmerino.online.shop.services.AlgoliaServiceImpl;
 import com.yashmerino.online.shop.services.interfaces.AlgoliaService;
 import com.yashmerino.online.shop.services.interfaces.ProductService;
@@ -33,7 +35,11 @@ import com.yashmerino.online.shop.swagger.SwaggerConfig;
 import com.yashmerino.online.shop.swagger.SwaggerHttpStatus;
 import com.yashmerino.online.shop.swagger.SwaggerMessages;
 import com.yashmerino.online.shop.utils.ApplicationProperties;
+import com.yashmerino.online.shop.utils.ProductCursor;
+import com.yashmerino.online.shop.utils.ProductFilter;
+import com.yashmerino.online.shop.utils.PhotoResponses;
 import com.yashmerino.online.shop.utils.RequestBodyToEntityConverter;
+import com.yashmerino.online.shop.utils.TotalMode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -43,19 +49,22 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.data.domain.Page;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.ArrayList;
+import java.io.InputStream;
 import java.util.List;
-
-import static com.yashmerino.online.shop.utils.RequestBodyToEntityConverter.convertToProductDTO;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Product's controller.
@@ -82,17 +91,24 @@ public class ProductController {
      */
     private final ApplicationProperties applicationProperties;
 
+    /**
+     * Catalog versions.
+     */
+    private final CatalogVersions catalogVersions;
+
     /**
      * Constructor.
      *
      * @param productService        is the products' service.
      * @param algoliaService        is the Algolia service.
      * @param applicationProperties is the application's properties.
+     * @param catalogVersions       is the catalog versions.
      */
-    public ProductController(ProductService productService, AlgoliaService algoliaService, ApplicationProperties applicationProperties) {
+    public ProductController(ProductService productService, AlgoliaService algoliaService, ApplicationProperties applicationProperties, CatalogVersions catalogVersions) {
         this.productService = productService;
         this.algoliaService = algoliaService;
         this.applicationProperties = applicationProperties;
+        this.catalogVersions = catalogVersions;
     }
 
     /**
@@ -124,7 +140,7 @@ public class ProductController {
         successDTO.setId(productId);
 
         if (applicationProperties.isAlgoliaUsed) {
-            algoliaService.addProductToIndex(convertToProductDTO(productService.getProduct(productId)));
+            algoliaService.addProductToIndex(productService.getProductDTO(productId));
         }
 
         return new ResponseEntity<>(successDTO, HttpStatus.OK);
@@ -164,7 +180,8 @@ public class ProductController {
     /**
      * Returns a product.
      *
-     * @param id is the product's id.
+     * @param id     is the product's id.
+     * @param fields is the comma separated list of fields to return, every field by default.
      * @return <code>ResponseEntity</code>
      * @throws EntityNotFoundException if cart item couldn't be found.
      */
@@ -173,6 +190,8 @@ public class ProductController {
             @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_PRODUCT,
                     content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(implementation = ProductDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
                     content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.FORBIDDEN, description = SwaggerMessages.FORBIDDEN,
@@ -182,17 +201,73 @@ public class ProductController {
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id) {
-        Product product = productService.getProduct(id);
-        ProductDTO productDTO = convertToProductDTO(product);
+    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        // The product is served from the cache, the fields are applied when the response is serialized.
+        SparseFields.forProduct(fields);
+        ProductDTO productDTO = productService.getProductDTO(id);
+
+        // A matching If-None-Match is answered with 304 before the body is serialized.
+        return ResponseEntity.ok()
+                .eTag(CatalogVersions.productETag(productDTO.getId(), productDTO.getVersion()))
+                .body(productDTO);
+    }
+
+    /**
+     * Returns several products by their ids.
+     *
+     * @param ids    is the comma separated list of products' ids.
+     * @param fields is the comma separated list of fields to return, every field by default.
+     * @return <code>ProductBatchDTO</code>
+     */
+    @Operation(summary = "Returns several products by their ids.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_PRODUCTS,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ProductBatchDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @GetMapping("/batch")
+    public ProductBatchDTO getProductsBatch(@RequestParam List<Long> ids, @RequestParam(required = false) String fields) {
+        SparseFields.forProduct(fields);
 
-        return new ResponseEntity<>(productDTO, HttpStatus.OK);
+        return buildProductBatchResponse(ids);
+    }
+
+    /**
+     * Returns several products by their ids, used when the list is too long for a query string.
+     *
+     * @param productIdsDTO is the DTO with the products' ids.
+     * @param fields        is the comma separated list of fields to return, every field by default.
+     * @return <code>ProductBatchDTO</code>
+     */
+    @Operation(summary = "Returns several products by their ids passed in the body.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_PRODUCTS,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ProductBatchDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @PostMapping("/batch")
+    public ProductBatchDTO postProductsBatch(@Validated @RequestBody ProductIdsDTO productIdsDTO, @RequestParam(required = false) String fields) {
+        SparseFields.forProduct(fields);
+
+        return buildProductBatchResponse(productIdsDTO.getIds());
     }
 
     /**
      * Returns all the products.
      *
+     * @param includeTotal is <code>exact</code> (default), <code>approx</code> or <code>false</code> to skip the totals.
+     * @param category is the id of the category the products must belong to.
+     * @param minPrice is the minimum price, inclusive.
+     * @param maxPrice is the maximum price, inclusive.
+     * @param fields is the comma separated list of fields to return, every field by default.
      * @param pageable is the page data.
+     * @param webRequest is the web request, used to check the ETag.
      *
      * @return <code>Page of ProductDTOs</code>.
      */
@@ -200,6 +275,8 @@ public class ProductController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_PRODUCTS,
                     content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
                     content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.FORBIDDEN, description = SwaggerMessages.FORBIDDEN,
@@ -209,30 +286,57 @@ public class ProductController {
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping
-    public PaginatedDTO<ProductDTO> getProducts(Pageable pageable) {
-        Page<Product> page = productService.getAllProducts(pageable);
+    public PaginatedDTO<ProductDTO> getProducts(@RequestParam(defaultValue = "exact") String includeTotal, @RequestParam(required = false) Long category,
+                                                @RequestParam(required = false) Double minPrice, @RequestParam(required = false) Double maxPrice,
+                                                @RequestParam(required = false) String fields, Pageable pageable, WebRequest webRequest) {
+        ProductFilter filter = ProductFilter.of(category, minPrice, maxPrice);
+        SparseFields sparseFields = SparseFields.forProduct(fields);
+
+        if (webRequest.checkNotModified(catalogVersions.productsETag())) {
+            return null;
+        }
+
+        Slice<ProductSummary> slice = productService.getAllProducts(pageable, TotalMode.parse(includeTotal), filter, sparseFields);
 
-        List<ProductDTO> products = page.getContent().stream()
+        List<ProductDTO> products = slice.getContent().stream()
                 .map(RequestBodyToEntityConverter::convertToProductDTO)
                 .toList();
 
-        PaginatedDTO<ProductDTO> paginated = new PaginatedDTO<>();
-        paginated.setData(products);
-        paginated.setCurrentPage(page.getNumber());
-        paginated.setTotalPages(page.getTotalPages());
-        paginated.setTotalItems(page.getTotalElements());
-        paginated.setPageSize(page.getSize());
-        paginated.setHasNext(page.hasNext());
-        paginated.setHasPrevious(page.hasPrevious());
+        return PaginatedDTO.buildPaginatedResponse(slice, products);
+    }
 
-        return paginated;
+    /**
+     * Returns the number of products in every category.
+     *
+     * @param webRequest is the web request, used to check the ETag.
+     *
+     * @return <code>List of CategoryFacetDTOs</code>.
+     */
+    @Operation(summary = "Returns the number of products in every category.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_CATEGORY_FACETS,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @GetMapping("/facets")
+    public List<CategoryFacetDTO> getCategoryFacets(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.productsETag())) {
+            return null;
+        }
+
+        return productService.getCategoryFacets();
     }
 
     /**
      * Returns all the seller's products.
      *
      * @param username is the seller's username.
+     * @param includeTotal is <code>exact</code> (default), <code>approx</code> or <code>false</code> to skip the totals.
+     * @param fields is the comma separated list of fields to return, every field by default.
      * @param pageable is the page details.
+     * @param webRequest is the web request, used to check the ETag.
      *
      * @return <code>Page of ProductDTOs</code>.
      */
@@ -240,6 +344,8 @@ public class ProductController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_SELLER_PRODUCTS,
                     content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
                     content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.FORBIDDEN, description = SwaggerMessages.FORBIDDEN,
@@ -249,23 +355,97 @@ public class ProductController {
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping("/seller/{username}")
-    public PaginatedDTO<ProductDTO> getSellerProducts(@PathVariable String username, Pageable pageable) {
-        Page<Product> page = productService.getSellerProducts(username, pageable);
+    public PaginatedDTO<ProductDTO> getSellerProducts(@PathVariable String username, @RequestParam(defaultValue = "exact") String includeTotal,
+                                                      @RequestParam(required = false) String fields, Pageable pageable, WebRequest webRequest) {
+        SparseFields sparseFields = SparseFields.forProduct(fields);
+
+        if (webRequest.checkNotModified(catalogVersions.productsETag())) {
+            return null;
+        }
 
-        List<ProductDTO> products = page.getContent().stream()
+        Slice<ProductSummary> slice = productService.getSellerProducts(username, pageable, TotalMode.parse(includeTotal), sparseFields);
+
+        List<ProductDTO> products = slice.getContent().stream()
                 .map(RequestBodyToEntityConverter::convertToProductDTO)
                 .toList();
 
-        PaginatedDTO<ProductDTO> paginated = new PaginatedDTO<>();
-        paginated.setData(products);
-        paginated.setCurrentPage(page.getNumber());
-        paginated.setTotalPages(page.getTotalPages());
-        paginated.setTotalItems(page.getTotalElements());
-        paginated.setPageSize(page.getSize());
-        paginated.setHasNext(page.hasNext());
-        paginated.setHasPrevious(page.hasPrevious());
+        return PaginatedDTO.buildPaginatedResponse(slice, products);
+    }
 
-        return paginated;
+    /**
+     * Returns all the products using keyset (cursor) pagination.
+     *
+     * @param after    is the cursor returned in the previous page, empty for the first page.
+     * @param category is the id of the category the products must belong to.
+     * @param minPrice is the minimum price, inclusive.
+     * @param maxPrice is the maximum price, inclusive.
+     * @param fields   is the comma separated list of fields to return, every field by default.
+     * @param pageable is the page size and the order, sorting by price orders the listing by (price, id).
+     * @param webRequest is the web request, used to check the ETag.
+     *
+     * @return <code>Cursor page of ProductDTOs</code>.
+     */
+    @Operation(summary = "Returns all the products using cursor pagination.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_PRODUCTS,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @GetMapping(params = "after")
+    public CursorPaginatedDTO<ProductDTO> getProductsAfter(@RequestParam String after, @RequestParam(required = false) Long category,
+                                                           @RequestParam(required = false) Double minPrice, @RequestParam(required = false) Double maxPrice,
+                                                           @RequestParam(required = false) String fields, Pageable pageable, WebRequest webRequest) {
+        ProductFilter filter = ProductFilter.of(category, minPrice, maxPrice);
+        SparseFields sparseFields = SparseFields.forProduct(fields);
+
+        if (webRequest.checkNotModified(catalogVersions.productsETag())) {
+            return null;
+        }
+
+        ProductCursor cursor = after.isEmpty() ? ProductCursor.first(pageable.getSort()) : ProductCursor.decode(after);
+        Slice<ProductSummary> slice = productService.getProductsAfter(cursor, pageable.getPageSize(), filter, sparseFields);
+
+        return buildCursorPaginatedResponse(slice, cursor);
+    }
+
+    /**
+     * Returns all the seller's products using keyset (cursor) pagination.
+     *
+     * @param username is the seller's username.
+     * @param after    is the cursor returned in the previous page, empty for the first page.
+     * @param fields   is the comma separated list of fields to return, every field by default.
+     * @param pageable is the page size and the order, sorting by price orders the listing by (price, id).
+     * @param webRequest is the web request, used to check the ETag.
+     *
+     * @return <code>Cursor page of ProductDTOs</code>.
+     */
+    @Operation(summary = "Returns all the seller's products by username using cursor pagination.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.RETURN_SELLER_PRODUCTS,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @GetMapping(path = "/seller/{username}", params = "after")
+    public CursorPaginatedDTO<ProductDTO> getSellerProductsAfter(@PathVariable String username, @RequestParam String after,
+                                                                 @RequestParam(required = false) String fields, Pageable pageable, WebRequest webRequest) {
+        SparseFields sparseFields = SparseFields.forProduct(fields);
+
+        if (webRequest.checkNotModified(catalogVersions.productsETag())) {
+            return null;
+        }
+
+        ProductCursor cursor = after.isEmpty() ? ProductCursor.first(pageable.getSort()) : ProductCursor.decode(after);
+        Slice<ProductSummary> slice = productService.getSellerProductsAfter(username, cursor, pageable.getPageSize(), sparseFields);
+
+        return buildCursorPaginatedResponse(slice, cursor);
     }
 
     /**
@@ -316,6 +496,10 @@ public class ProductController {
                             schema = @Schema(implementation = SuccessDTO.class))}),
             @ApiResponse(responseCode = SwaggerHttpStatus.NOT_FOUND, description = SwaggerMessages.PRODUCT_DOES_NOT_EXIST,
                     content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.PAYLOAD_TOO_LARGE, description = SwaggerMessages.PHOTO_TOO_LARGE,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.UNSUPPORTED_MEDIA_TYPE, description = SwaggerMessages.UNSUPPORTED_PHOTO_TYPE,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @PostMapping(path = "/{id}/photo", consumes = "multipart/form-data")
@@ -330,25 +514,64 @@ public class ProductController {
     }
 
     /**
-     * Returns product's photo as array of bytes.
+     * Sets product's photo from the raw request body, it's streamed to the storage without buffering the whole upload.
      *
-     * @param id is the product's id.
+     * @param id      is the product's id.
+     * @param content is the photo's content.
+     * @param length  is the declared length of the content.
+     * @return <code>ResponseEntity</code>
+     */
+    @Operation(summary = "Updates product photo from the request body.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.PRODUCT_PHOTO_IS_UPDATED,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = SuccessDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_FOUND, description = SwaggerMessages.PRODUCT_DOES_NOT_EXIST,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.PAYLOAD_TOO_LARGE, description = SwaggerMessages.PHOTO_TOO_LARGE,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.UNSUPPORTED_MEDIA_TYPE, description = SwaggerMessages.UNSUPPORTED_PHOTO_TYPE,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @PutMapping(path = "/{id}/photo", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE})
+    public ResponseEntity<SuccessDTO> uploadProductPhoto(@PathVariable Long id, @Parameter(description = "Product's photo.") InputStream content,
+                                                         @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long length) {
+        productService.updatePhoto(id, content, length == null ? -1 : length);
+
+        SuccessDTO successDTO = new SuccessDTO();
+        successDTO.setStatus(200);
+        successDTO.setMessage("product_photo_updated_successfully");
+
+        return new ResponseEntity<>(successDTO, HttpStatus.OK);
+    }
+
+    /**
+     * Returns product's photo, streamed from the photo storage.
+     * Supports <code>Range</code> and <code>If-None-Match</code> requests.
+     *
+     * @param id      is the product's id.
+     * @param version is the photo's hash, a matching hash makes the response immutable.
+     * @param size    is the requested thumbnail size, the nearest bigger generated size or the original is returned.
      * @return <code>ResponseEntity</code>
      */
     @Operation(summary = "Returns product photo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.PRODUCT_PHOTO_RETURNED,
-                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = byte[].class))}),
+                    content = {@Content(mediaType = "image/*",
+                            schema = @Schema(type = "string", format = "binary"))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.PARTIAL_CONTENT, description = SwaggerMessages.PARTIAL_CONTENT,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.NOT_FOUND, description = SwaggerMessages.PRODUCT_DOES_NOT_EXIST,
                     content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping(path = "/{id}/photo")
-    public ResponseEntity<byte[]> getProductPhoto(@PathVariable Long id) {
-        byte[] photo = productService.getProduct(id).getPhoto();
-
-        return new ResponseEntity<>(photo, HttpStatus.OK);
+    public ResponseEntity<Resource> getProductPhoto(@PathVariable Long id, @RequestParam(name = "v", required = false) String version,
+                                                    @RequestParam(required = false) Integer size) {
+        return PhotoResponses.ok(productService.getPhoto(id, PhotoResponses.checkSize(size)), version);
     }
 
     /**
@@ -356,6 +579,7 @@ public class ProductController {
      *
      * @param id         is the product's id.
      * @param productDTO is the product DTO.
+     * @param ifMatch    is the product's ETag the client has seen, optional.
      * @return <code>ResponseEntity</code>
      * @throws EntityNotFoundException if product couldn't be found.
      */
@@ -369,20 +593,80 @@ public class ProductController {
                     content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.UNAUTHORIZED, description = SwaggerMessages.UNAUTHORIZED,
                     content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.CONFLICT, description = SwaggerMessages.PRODUCT_MODIFIED,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.PRECONDITION_FAILED, description = SwaggerMessages.PRODUCT_MODIFIED,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @PutMapping("/{id}")
-    public ResponseEntity<SuccessDTO> updateProduct(@PathVariable Long id, @Validated @RequestBody ProductDTO productDTO) {
-        productService.updateProduct(id, productDTO);
+    public ResponseEntity<SuccessDTO> updateProduct(@PathVariable Long id, @Validated @RequestBody ProductDTO productDTO,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        productService.updateProduct(id, productDTO, CatalogVersions.productVersionFromIfMatch(id, ifMatch));
+        ProductDTO updatedProductDTO = productService.getProductDTO(id);
 
         SuccessDTO successDTO = new SuccessDTO();
         successDTO.setStatus(200);
         successDTO.setMessage("product_updated_successfully");
 
         if (applicationProperties.isAlgoliaUsed) {
-            algoliaService.updateProduct(convertToProductDTO(productService.getProduct(id)));
+            algoliaService.updateProduct(updatedProductDTO);
         }
 
-        return new ResponseEntity<>(successDTO, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .eTag(CatalogVersions.productETag(id.toString(), updatedProductDTO.getVersion()))
+                .body(successDTO);
+    }
+
+    /**
+     * Looks up the products and reports the ids that weren't found.
+     *
+     * @param ids is the products' ids.
+     * @return <code>ProductBatchDTO</code>
+     * @throws InvalidInputException if too many ids were passed.
+     */
+    private ProductBatchDTO buildProductBatchResponse(List<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        if (distinctIds.size() > applicationProperties.productBatchMaxSize) {
+            throw new InvalidInputException("too_many_ids");
+        }
+
+        Map<Long, ProductDTO> products = productService.getProductDTOs(distinctIds);
+
+        ProductBatchDTO batchDTO = new ProductBatchDTO();
+        batchDTO.setData(List.copyOf(products.values()));
+        batchDTO.setMissingIds(distinctIds.stream()
+                .filter(id -> !products.containsKey(id))
+                .toList());
+
+        return batchDTO;
+    }
+
+    /**
+     * Builds a cursor paginated DTO from a slice of summaries.
+     *
+     * @param slice  is the slice of summaries.
+     * @param cursor is the cursor used to read the slice.
+     * @return <code>Cursor page of ProductDTOs</code>.
+     */
+    private static CursorPaginatedDTO<ProductDTO> buildCursorPaginatedResponse(Slice<ProductSummary> slice, ProductCursor cursor) {
+        List<ProductSummary> content = slice.getContent();
+
+        CursorPaginatedDTO<ProductDTO> paginated = new CursorPaginatedDTO<>();
+        paginated.setData(content.stream()
+                .map(RequestBodyToEntityConverter::convertToProductDTO)
+                .toList());
+        paginated.setPageSize(slice.getSize());
+        paginated.setHasNext(slice.hasNext());
+
+        if (slice.hasNext()) {
+            paginated.setNextCursor(cursor.next(content.get(content.size() - 1)).encode());
+        }
+
+        return paginated;
     }
 }
@@ -23,14 +23,17 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.model.dto.ImportResultDTO;
 import com.yashmerino.online.shop.model.dto.SuccessDTO;
 import com.yashmerino.online.shop.model.dto.auth.UserDTO;
+import com.yashmerino.online.shop.model.dto.auth.UserImportDTO;
 import com.yashmerino.online.shop.model.dto.auth.UserInfoDTO;
 import com.yashmerino.online.shop.services.interfaces.AuthService;
 import com.yashmerino.online.shop.services.interfaces.UserService;
 import com.yashmerino.online.shop.swagger.SwaggerConfig;
 import com.yashmerino.online.shop.swagger.SwaggerHttpStatus;
 import com.yashmerino.online.shop.swagger.SwaggerMessages;
+import com.yashmerino.online.shop.utils.PhotoResponses;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -39,6 +42,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -46,6 +52,9 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.List;
+
 /**
  * Controller for users.
  */
@@ -107,6 +116,10 @@ public class UserController {
                             schema = @Schema(implementation = SuccessDTO.class))}),
             @ApiResponse(responseCode = SwaggerHttpStatus.NOT_FOUND, description = SwaggerMessages.USER_DOES_NOT_EXIST,
                     content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.PAYLOAD_TOO_LARGE, description = SwaggerMessages.PHOTO_TOO_LARGE,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.UNSUPPORTED_MEDIA_TYPE, description = SwaggerMessages.UNSUPPORTED_PHOTO_TYPE,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @PostMapping(path = "/{username}/photo", consumes = "multipart/form-data")
@@ -121,25 +134,86 @@ public class UserController {
     }
 
     /**
-     * Returns user's photo as array of bytes.
+     * Sets user's photo from the raw request body, it's streamed to the storage without buffering the whole upload.
+     *
+     * @param username is the user's username.
+     * @param content  is the photo's content.
+     * @param length   is the declared length of the content.
+     * @return <code>ResponseEntity</code>
+     */
+    @Operation(summary = "Updates user photo from the request body.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.USER_PHOTO_IS_UPDATED,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = SuccessDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_FOUND, description = SwaggerMessages.USER_DOES_NOT_EXIST,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.PAYLOAD_TOO_LARGE, description = SwaggerMessages.PHOTO_TOO_LARGE,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.UNSUPPORTED_MEDIA_TYPE, description = SwaggerMessages.UNSUPPORTED_PHOTO_TYPE,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @PutMapping(path = "/{username}/photo", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_GIF_VALUE})
+    public ResponseEntity<SuccessDTO> uploadUserPhoto(@PathVariable String username, @Parameter(description = "User's photo.") InputStream content,
+                                                      @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long length) {
+        userService.updatePhoto(username, content, length == null ? -1 : length);
+
+        SuccessDTO successDTO = new SuccessDTO();
+        successDTO.setStatus(200);
+        successDTO.setMessage("user_photo_updated_successfully");
+
+        return new ResponseEntity<>(successDTO, HttpStatus.OK);
+    }
+
+    /**
+     * Returns user's photo, streamed from the photo storage.
+     * Supports <code>Range</code> and <code>If-None-Match</code> requests.
      *
      * @param username is the user's username.
+     * @param version  is the photo's hash, a matching hash makes the response immutable.
+     * @param size     is the requested thumbnail size, the nearest bigger generated size or the original is returned.
      * @return <code>ResponseEntity</code>
      */
     @Operation(summary = "Returns user photo.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.USER_PHOTO_RETURNED,
-                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-                            schema = @Schema(implementation = byte[].class))}),
+                    content = {@Content(mediaType = "image/*",
+                            schema = @Schema(type = "string", format = "binary"))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.PARTIAL_CONTENT, description = SwaggerMessages.PARTIAL_CONTENT,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.NOT_MODIFIED, description = SwaggerMessages.NOT_MODIFIED,
+                    content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.NOT_FOUND, description = SwaggerMessages.USER_DOES_NOT_EXIST,
                     content = @Content),
             @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
                     content = @Content)})
     @GetMapping(path = "/{username}/photo")
-    public ResponseEntity<byte[]> getUserPhoto(@PathVariable String username) {
-        byte[] photo = userService.getByUsername(username).getPhoto();
+    public ResponseEntity<Resource> getUserPhoto(@PathVariable String username, @RequestParam(name = "v", required = false) String version,
+                                                 @RequestParam(required = false) Integer size) {
+        return PhotoResponses.ok(userService.getPhoto(username, PhotoResponses.checkSize(size)), version);
+    }
 
-        return new ResponseEntity<>(photo, HttpStatus.OK);
+    /**
+     * Imports users with their BCrypt password hashes.
+     *
+     * @param users is the users to import.
+     * @return <code>ResponseEntity</code>
+     */
+    @Operation(summary = "Imports users with their BCrypt password hashes, the taken usernames are skipped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = SwaggerHttpStatus.OK, description = SwaggerMessages.USERS_IMPORTED,
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = ImportResultDTO.class))}),
+            @ApiResponse(responseCode = SwaggerHttpStatus.BAD_REQUEST, description = SwaggerMessages.BAD_REQUEST,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.FORBIDDEN, description = SwaggerMessages.FORBIDDEN,
+                    content = @Content),
+            @ApiResponse(responseCode = SwaggerHttpStatus.INTERNAL_SERVER_ERROR, description = SwaggerMessages.INTERNAL_SERVER_ERROR,
+                    content = @Content)})
+    @PostMapping(path = "/import")
+    public ResponseEntity<ImportResultDTO> importUsers(@Parameter(description = "Users to import.") @RequestBody List<@Valid UserImportDTO> users) {
+        return new ResponseEntity<>(userService.importUsers(users), HttpStatus.OK);
     }
 
     /**
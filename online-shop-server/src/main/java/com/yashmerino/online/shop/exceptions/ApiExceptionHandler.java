@@ -25,8 +25,10 @@ package com.yashmerino.online.shop.exceptions;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.validation.FieldError;
@@ -35,6 +37,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -161,6 +164,40 @@ public class ApiExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.CONFLICT);
     }
 
+    /**
+     * Handles the {@link PreconditionFailedException}
+     *
+     * @param e is the thrown exception.
+     * @return <code>ResponseEntity</code>
+     */
+    @ExceptionHandler(value = {PreconditionFailedException.class})
+    @ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+    public ResponseEntity<CustomErrorResponse> preconditionFailedExceptionHandler(PreconditionFailedException e) {
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError(e.getMessage());
+        errors.setStatus(HttpStatus.PRECONDITION_FAILED.value());
+
+        return new ResponseEntity<>(errors, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Handles the {@link ObjectOptimisticLockingFailureException}
+     *
+     * @param e is the thrown exception.
+     * @return <code>ResponseEntity</code>
+     */
+    @ExceptionHandler(value = {ObjectOptimisticLockingFailureException.class})
+    @ResponseStatus(value = HttpStatus.CONFLICT)
+    public ResponseEntity<CustomErrorResponse> optimisticLockingFailureExceptionHandler(ObjectOptimisticLockingFailureException e) {
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError("product_modified");
+        errors.setStatus(HttpStatus.CONFLICT.value());
+
+        return new ResponseEntity<>(errors, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles the {@link EntityNotFoundException}
      *
@@ -212,6 +249,40 @@ public class ApiExceptionHandler {
         return new ResponseEntity<>(errors, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * Handles the {@link PhotoTooLargeException} and {@link MaxUploadSizeExceededException}
+     *
+     * @param e is the thrown exception.
+     * @return <code>ResponseEntity</code>
+     */
+    @ExceptionHandler(value = {PhotoTooLargeException.class, MaxUploadSizeExceededException.class})
+    @ResponseStatus(value = HttpStatus.PAYLOAD_TOO_LARGE)
+    public ResponseEntity<CustomErrorResponse> photoTooLargeExceptionHandler(Exception e) {
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError(e instanceof PhotoTooLargeException ? e.getMessage() : "photo_too_large");
+        errors.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+
+        return new ResponseEntity<>(errors, HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    /**
+     * Handles the {@link UnsupportedPhotoTypeException}
+     *
+     * @param e is the thrown exception.
+     * @return <code>ResponseEntity</code>
+     */
+    @ExceptionHandler(value = {UnsupportedPhotoTypeException.class})
+    @ResponseStatus(value = HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+    public ResponseEntity<CustomErrorResponse> unsupportedPhotoTypeExceptionHandler(UnsupportedPhotoTypeException e) {
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError(e.getMessage());
+        errors.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+
+        return new ResponseEntity<>(errors, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
     /**
      * Handles the {@link AccessDeniedException}
      *
@@ -228,4 +299,38 @@ public class ApiExceptionHandler {
 
         return new ResponseEntity<>(errors, HttpStatus.FORBIDDEN);
     }
+
+    /**
+     * Handles the {@link InvalidRefreshTokenException}
+     *
+     * @param e is the thrown exception.
+     * @return <code>ResponseEntity</code>
+     */
+    @ExceptionHandler(value = {InvalidRefreshTokenException.class})
+    @ResponseStatus(value = HttpStatus.UNAUTHORIZED)
+    public ResponseEntity<CustomErrorResponse> invalidRefreshTokenExceptionHandler(InvalidRefreshTokenException e) {
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError(e.getMessage());
+        errors.setStatus(HttpStatus.UNAUTHORIZED.value());
+
+        return new ResponseEntity<>(errors, HttpStatus.UNAUTHORIZED);
+    }
+
+    /**
+     * Handles the {@link ServerBusyException}
+     *
+     * @param e is the thrown exception.
+     * @return <code>ResponseEntity</code>
+     */
+    @ExceptionHandler(value = {ServerBusyException.class})
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<CustomErrorResponse> serverBusyExceptionHandler(ServerBusyException e) {
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError(e.getMessage());
+        errors.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(errors);
+    }
 }
@@ -0,0 +1,176 @@
+package com.yashmerino.online.shop.fields;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.InvalidInputException;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Fields requested with the <code>fields</code> parameter, e.g. <code>?fields=name,price</code>.
+ * The id is always included. Without the parameter every field is included.
+ */
+public final class SparseFields {
+
+    /**
+     * Name of the request parameter.
+     */
+    public static final String PARAMETER = "fields";
+
+    /**
+     * Id of the Jackson filter applied to {@link com.yashmerino.online.shop.model.dto.ProductDTO}.
+     */
+    public static final String PRODUCT_FILTER = "productFields";
+
+    /**
+     * Id of the Jackson filter applied to {@link com.yashmerino.online.shop.model.dto.CartItemDTO}.
+     */
+    public static final String CART_ITEM_FILTER = "cartItemFields";
+
+    /**
+     * Product's id field.
+     */
+    public static final String PRODUCT_ID = "objectID";
+
+    /**
+     * Product's fields that can be requested.
+     */
+    public static final Set<String> PRODUCT_FIELDS = Set.of(PRODUCT_ID, "name", "price", "description", "categories");
+
+    /**
+     * Cart item's id field.
+     */
+    public static final String CART_ITEM_ID = "id";
+
+    /**
+     * Cart item's fields that can be requested.
+     */
+    public static final Set<String> CART_ITEM_FIELDS = Set.of(CART_ITEM_ID, "productId", "name", "price", "cartId", "quantity");
+
+    /**
+     * Selection of every field.
+     */
+    public static final SparseFields ALL = new SparseFields(null);
+
+    /**
+     * Requested fields or <code>null</code> if every field is requested.
+     */
+    private final Set<String> fields;
+
+    /**
+     * Constructor.
+     *
+     * @param fields are the requested fields or <code>null</code> for every field.
+     */
+    private SparseFields(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parses the product fields.
+     *
+     * @param value is the parameter's value, can be <code>null</code>.
+     * @return the requested fields.
+     * @throws InvalidInputException if an unknown field is requested.
+     */
+    public static SparseFields forProduct(final String value) {
+        return parse(value, PRODUCT_FIELDS, PRODUCT_ID);
+    }
+
+    /**
+     * Parses the cart item fields.
+     *
+     * @param value is the parameter's value, can be <code>null</code>.
+     * @return the requested fields.
+     * @throws InvalidInputException if an unknown field is requested.
+     */
+    public static SparseFields forCartItem(final String value) {
+        return parse(value, CART_ITEM_FIELDS, CART_ITEM_ID);
+    }
+
+    /**
+     * Parses a comma separated list of fields.
+     *
+     * @param value   is the parameter's value, can be <code>null</code>.
+     * @param allowed are the fields that can be requested.
+     * @param idField is the id field that is always included.
+     * @return the requested fields.
+     * @throws InvalidInputException if an unknown field is requested.
+     */
+    private static SparseFields parse(final String value, final Set<String> allowed, final String idField) {
+        if (value == null || value.isBlank()) {
+            return ALL;
+        }
+
+        Set<String> fields = new LinkedHashSet<>();
+        fields.add(idField);
+
+        for (String field : value.split(",")) {
+            String trimmed = field.trim();
+
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            if (!allowed.contains(trimmed)) {
+                throw new InvalidInputException("invalid_fields");
+            }
+
+            fields.add(trimmed);
+        }
+
+        return new SparseFields(Collections.unmodifiableSet(fields));
+    }
+
+    /**
+     * Checks if a field is requested.
+     *
+     * @param field is the field's name.
+     * @return <code>true</code> if the field is requested.
+     */
+    public boolean includes(final String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Checks if every field is requested.
+     *
+     * @return <code>true</code> if there is no selection.
+     */
+    public boolean isAll() {
+        return fields == null;
+    }
+
+    /**
+     * Returns the requested fields.
+     *
+     * @return the requested fields or <code>null</code> if every field is requested.
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+}
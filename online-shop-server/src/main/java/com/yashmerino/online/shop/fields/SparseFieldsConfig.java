@@ -0,0 +1,71 @@
+package com.yashmerino.online.shop.fields;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.yashmerino.online.shop.model.dto.CartItemDTO;
+import com.yashmerino.online.shop.model.dto.ProductDTO;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the sparse fieldsets filters on the web object mapper.
+ * The filters are attached with mix-ins, so the DTOs serialized by other mappers (e.g. Algolia's) aren't affected.
+ */
+@Configuration
+public class SparseFieldsConfig {
+
+    /**
+     * Mix-in that attaches the product filter.
+     */
+    @JsonFilter(SparseFields.PRODUCT_FILTER)
+    private interface ProductFieldsMixIn {
+    }
+
+    /**
+     * Mix-in that attaches the cart item filter.
+     */
+    @JsonFilter(SparseFields.CART_ITEM_FILTER)
+    private interface CartItemFieldsMixIn {
+    }
+
+    /**
+     * Adds the mix-ins and the default filter that serializes every field.
+     *
+     * @return <code>Jackson2ObjectMapperBuilderCustomizer</code>
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsCustomizer() {
+        return builder -> builder
+                .mixIn(ProductDTO.class, ProductFieldsMixIn.class)
+                .mixIn(CartItemDTO.class, CartItemFieldsMixIn.class)
+                .filters(new SimpleFilterProvider()
+                        .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll())
+                        .setFailOnUnknownId(false));
+    }
+}
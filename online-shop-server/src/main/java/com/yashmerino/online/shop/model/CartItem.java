@@ -27,6 +27,7 @@ package com.yashmerino.online.shop.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.yashmerino.online.shop.model.base.BaseEntity;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -50,7 +51,7 @@ public class CartItem extends BaseEntity {
      * The cart item's product.
      */
     @JsonBackReference
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     private Product product;
 
@@ -68,7 +69,7 @@ public class CartItem extends BaseEntity {
      * The cart item's cart.
      */
     @JsonBackReference
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id")
     private Cart cart;
 
@@ -27,12 +27,13 @@ package com.yashmerino.online.shop.model;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.yashmerino.online.shop.model.base.BaseEntity;
-import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -45,7 +46,10 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity(name = "products")
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price_id", columnList = "price, id"),
+        @Index(name = "idx_products_user_price_id", columnList = "user_id, price, id")
+})
 public class Product extends BaseEntity {
 
     /**
@@ -64,16 +68,22 @@ public class Product extends BaseEntity {
     private String description;
 
     /**
-     * Product's categories.
+     * Product's categories. Loaded on demand, in batches when several products are initialized.
+     * The primary key serves the lookups by product, the index serves the category filter and facets.
      */
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "products_categories",
+            joinColumns = @JoinColumn(name = "products_id"),
+            inverseJoinColumns = @JoinColumn(name = "categories_id"),
+            indexes = @Index(name = "idx_products_categories_category_product", columnList = "categories_id, products_id"))
+    @BatchSize(size = 50)
     private Set<Category> categories;
 
     /**
      * Product's seller.
      */
     @JsonBackReference
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
@@ -82,15 +92,14 @@ public class Product extends BaseEntity {
      */
     @JsonManagedReference
     @OneToMany(orphanRemoval = true)
+    @OptimisticLock(excluded = true)
     private Set<CartItem> cartItems = new HashSet<>();
 
     /**
-     * Product's photo.
+     * Product's version, incremented on every update. Cart items don't change it.
      */
-    @Lob
-    @Column(name = "photo", length = 100000)
-    @Nullable
-    private byte[] photo;
+    @Version
+    private long version;
 
     /**
      * Links a cart item to the product.
@@ -26,7 +26,6 @@ package com.yashmerino.online.shop.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.yashmerino.online.shop.model.base.NamedEntity;
-import jakarta.annotation.Nullable;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -66,6 +65,7 @@ public class User extends NamedEntity {
     /**
      * User's username.
      */
+    @Column(name = "username", unique = true)
     private String username;
 
     /**
@@ -81,10 +81,8 @@ public class User extends NamedEntity {
     private Set<Role> roles = new HashSet<>();
 
     /**
-     * User's photo.
+     * Version of the user's tokens, incremented to revoke all of them.
      */
-    @Lob
-    @Column(name = "photo", length = 100000)
-    @Nullable
-    private byte[] photo;
+    @Column(name = "token_version", nullable = false)
+    private long tokenVersion;
 }
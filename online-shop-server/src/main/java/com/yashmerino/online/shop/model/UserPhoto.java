@@ -0,0 +1,72 @@
+package com.yashmerino.online.shop.model;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * JPA Entity for user's photo, kept apart from the user so loading a user never loads its photo.
+ */
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity(name = "user_photos")
+@Table(name = "user_photos")
+public class UserPhoto {
+
+    /**
+     * User's id.
+     */
+    @Id
+    @Column(name = "user_id")
+    private Long id;
+
+    /**
+     * User of the photo, only mapped to reference the user's row.
+     */
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    private User user;
+
+    /**
+     * SHA-256 hash of the photo, the content is kept in the photo storage.
+     */
+    @Column(name = "photo_hash", length = 64, nullable = false)
+    private String photoHash;
+
+    /**
+     * Constructor.
+     *
+     * @param id        is the user's id.
+     * @param photoHash is the SHA-256 hash of the photo.
+     */
+    public UserPhoto(final Long id, final String photoHash) {
+        this.id = id;
+        this.photoHash = photoHash;
+    }
+}
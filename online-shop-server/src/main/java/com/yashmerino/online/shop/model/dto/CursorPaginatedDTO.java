@@ -0,0 +1,61 @@
+package com.yashmerino.online.shop.model.dto;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Variant of {@link PaginatedDTO} returned by keyset (cursor) paginated listings.
+ * It has no totals, the next page is requested by passing {@link #nextCursor} as the <code>after</code> parameter.
+ *
+ * @param <T> is the type of the data stored in the page.
+ */
+@Getter
+@Setter
+public class CursorPaginatedDTO<T> {
+
+    /**
+     * Page's data.
+     */
+    private List<T> data;
+
+    /**
+     * Requested page size.
+     */
+    private int pageSize;
+
+    /**
+     * Whether there is a next page.
+     */
+    private boolean hasNext;
+
+    /**
+     * Token of the next page or <code>null</code> if it's the last page.
+     */
+    private String nextCursor;
+}
@@ -1,8 +1,10 @@
 package com.yashmerino.online.shop.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 
@@ -16,8 +18,10 @@ import java.util.List;
 public class PaginatedDTO<T> {
     private List<T> data;
     private int currentPage;
-    private int totalPages;
-    private long totalItems;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalItems;
     private int pageSize;
     private double totalPrice;
     private boolean hasNext;
@@ -43,4 +47,30 @@ public class PaginatedDTO<T> {
         response.setHasPrevious(page.hasPrevious());
         return response;
     }
+
+    /**
+     * Builds a paginated DTO from a slice, the totals are set only if the slice is a page.
+     *
+     * @param slice is the slice object.
+     * @param data  is the converted content of the slice.
+     *
+     * @return Paginated DTO.
+     *
+     * @param <T> is the type of the data stored in the page.
+     */
+    public static <T> PaginatedDTO<T> buildPaginatedResponse(Slice<?> slice, List<T> data) {
+        PaginatedDTO<T> response = new PaginatedDTO<>();
+        response.setData(data);
+        response.setCurrentPage(slice.getNumber());
+
+        if (slice instanceof Page<?> page) {
+            response.setTotalPages(page.getTotalPages());
+            response.setTotalItems(page.getTotalElements());
+        }
+
+        response.setPageSize(slice.getSize());
+        response.setHasNext(slice.hasNext());
+        response.setHasPrevious(slice.hasPrevious());
+        return response;
+    }
 }
\ No newline at end of file
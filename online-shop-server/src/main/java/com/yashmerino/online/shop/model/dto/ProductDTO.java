@@ -23,6 +23,7 @@ package com.yashmerino.online.shop.model.dto;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.yashmerino.online.shop.model.Category;
@@ -75,4 +76,10 @@ public class ProductDTO {
      * Product's categories.
      */
     private Set<Category> categories;
+
+    /**
+     * Product's version, used for the ETag.
+     */
+    @JsonIgnore
+    private long version;
 }
@@ -39,6 +39,11 @@ public class AuthResponseDTO {
      */
     private String accessToken;
 
+    /**
+     * Refresh token, it's exchanged for a new access token once the current one expires.
+     */
+    private String refreshToken;
+
     /**
      * Token's type.
      */
@@ -47,9 +52,11 @@ public class AuthResponseDTO {
     /**
      * Constructor.
      *
-     * @param accessToken is the access token.
+     * @param accessToken  is the access token.
+     * @param refreshToken is the refresh token.
      */
-    public AuthResponseDTO(final String accessToken) {
+    public AuthResponseDTO(final String accessToken, final String refreshToken) {
         this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
     }
 }
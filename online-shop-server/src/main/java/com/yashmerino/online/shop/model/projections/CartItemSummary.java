@@ -0,0 +1,84 @@
+package com.yashmerino.online.shop.model.projections;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import lombok.Getter;
+
+/**
+ * Read-only view of a cart item used by the cart listing.
+ * Contains only the requested columns, the product and the cart are never loaded.
+ */
+@Getter
+public class CartItemSummary {
+
+    /**
+     * Cart item's id.
+     */
+    private final Long id;
+
+    /**
+     * Product's id.
+     */
+    private final Long productId;
+
+    /**
+     * Cart item's name.
+     */
+    private final String name;
+
+    /**
+     * Cart item's price.
+     */
+    private final Double price;
+
+    /**
+     * Cart's id.
+     */
+    private final Long cartId;
+
+    /**
+     * Cart item's quantity.
+     */
+    private final Integer quantity;
+
+    /**
+     * Constructor, the fields that weren't selected are <code>null</code>.
+     *
+     * @param id        is the cart item's id.
+     * @param productId is the product's id.
+     * @param name      is the cart item's name.
+     * @param price     is the cart item's price.
+     * @param cartId    is the cart's id.
+     * @param quantity  is the cart item's quantity.
+     */
+    public CartItemSummary(Long id, Long productId, String name, Double price, Long cartId, Integer quantity) {
+        this.id = id;
+        this.productId = productId;
+        this.name = name;
+        this.price = price;
+        this.cartId = cartId;
+        this.quantity = quantity;
+    }
+}
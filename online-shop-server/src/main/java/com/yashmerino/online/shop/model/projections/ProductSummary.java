@@ -0,0 +1,82 @@
+package com.yashmerino.online.shop.model.projections;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.model.Category;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Read-only view of a product used by the listing endpoints.
+ * Contains only the columns needed to build a {@link com.yashmerino.online.shop.model.dto.ProductDTO},
+ * so the photo and the cart items are never loaded.
+ */
+@Getter
+@Setter
+public class ProductSummary {
+
+    /**
+     * Product's id.
+     */
+    private final Long id;
+
+    /**
+     * Product's name.
+     */
+    private final String name;
+
+    /**
+     * Product's price.
+     */
+    private final Double price;
+
+    /**
+     * Product's description.
+     */
+    private final String description;
+
+    /**
+     * Product's categories.
+     */
+    private Set<Category> categories = new LinkedHashSet<>();
+
+    /**
+     * Constructor, the fields that weren't selected are <code>null</code>.
+     *
+     * @param id          is the product's id.
+     * @param name        is the product's name.
+     * @param price       is the product's price.
+     * @param description is the product's description.
+     */
+    public ProductSummary(Long id, String name, Double price, String description) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.description = description;
+    }
+}
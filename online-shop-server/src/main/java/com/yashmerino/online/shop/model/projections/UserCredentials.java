@@ -0,0 +1,74 @@
+package com.yashmerino.online.shop.model.projections;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+/**
+ * Projection of a user's credentials with one of the user's roles, a user has one row per role.
+ * It's all login needs, the user's photo, cart and products aren't read.
+ */
+public interface UserCredentials {
+
+    /**
+     * Returns the user's id.
+     *
+     * @return the user's id.
+     */
+    Long getId();
+
+    /**
+     * Returns the user's cart id.
+     *
+     * @return the user's cart id or <code>null</code> if the user has no cart.
+     */
+    Long getCartId();
+
+    /**
+     * Returns the user's token version.
+     *
+     * @return the user's token version.
+     */
+    Long getTokenVersion();
+
+    /**
+     * Returns the user's username.
+     *
+     * @return the user's username.
+     */
+    String getUsername();
+
+    /**
+     * Returns the user's encoded password.
+     *
+     * @return the user's encoded password.
+     */
+    String getPassword();
+
+    /**
+     * Returns the role's name.
+     *
+     * @return the role's name or <code>null</code> if the user has no roles.
+     */
+    String getRole();
+}
@@ -25,20 +25,28 @@ package com.yashmerino.online.shop.repositories;
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
 import com.yashmerino.online.shop.model.CartItem;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 /**
  * Cart Items' repository.
  */
 @Repository
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    Page<CartItem> findAllByCartUserUsername(String username, Pageable pageable);
-
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, CartItemRepositoryCustom {
     @Query("SELECT SUM(c.price * c.quantity) FROM cart_items c WHERE c.cart.user.username = :username")
     Double getTotalPriceByUsername(@Param("username") String username);
+
+    /**
+     * Returns a cart item with its cart and the cart's owner, used for the ownership checks.
+     *
+     * @param id is the cart item's id.
+     * @return <code>Optional of CartItem</code>
+     */
+    @EntityGraph(attributePaths = {"cart", "cart.user"})
+    Optional<CartItem> findWithCartById(Long id);
 }
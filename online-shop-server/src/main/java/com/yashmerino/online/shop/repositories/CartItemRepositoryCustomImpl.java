@@ -0,0 +1,133 @@
+package com.yashmerino.online.shop.repositories;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.fields.SparseFields;
+import com.yashmerino.online.shop.model.projections.CartItemSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation for {@link CartItemRepositoryCustom}
+ */
+public class CartItemRepositoryCustomImpl implements CartItemRepositoryCustom {
+
+    /**
+     * Cart item's fields and the selected paths, the id is always selected.
+     */
+    private static final String[][] COLUMNS = {
+            {"productId", "c.product.id"},
+            {"name", "c.name"},
+            {"price", "c.price"},
+            {"cartId", "c.cart.id"},
+            {"quantity", "c.quantity"}
+    };
+
+    /**
+     * Where clause of the listing.
+     */
+    private static final String WHERE = " FROM cart_items c WHERE c.cart.user.username = :username";
+
+    /**
+     * Entity manager.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Returns a page of the user's cart item summaries with only the requested columns.
+     *
+     * @param username is the user's username.
+     * @param fields   are the requested fields.
+     * @param pageable is the page details.
+     * @param count    is whether to count the cart items, a <code>Page</code> is returned if set.
+     * @return Slice of CartItemSummaries.
+     */
+    @Override
+    public Slice<CartItemSummary> findSummaries(String username, SparseFields fields, Pageable pageable, boolean count) {
+        List<String> selected = new ArrayList<>();
+        StringBuilder select = new StringBuilder("SELECT c.id");
+
+        for (String[] column : COLUMNS) {
+            if (fields.includes(column[0])) {
+                selected.add(column[0]);
+                select.append(", ").append(column[1]);
+            }
+        }
+
+        String jpql = QueryUtils.applySorting(select + WHERE, pageable.getSort(), "c");
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("username", username);
+
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            // Without a count one extra row tells if there is a next page.
+            query.setMaxResults(count ? pageable.getPageSize() : pageable.getPageSize() + 1);
+        }
+
+        List<CartItemSummary> summaries = query.getResultList().stream()
+                .map(row -> toSummary(row, selected))
+                .toList();
+
+        if (count) {
+            return PageableExecutionUtils.getPage(summaries, pageable, () -> entityManager
+                    .createQuery("SELECT count(c)" + WHERE, Long.class)
+                    .setParameter("username", username)
+                    .getSingleResult());
+        }
+
+        boolean hasNext = pageable.isPaged() && summaries.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? summaries.subList(0, pageable.getPageSize()) : summaries, pageable, hasNext);
+    }
+
+    /**
+     * Maps a selected row to a summary, the columns that weren't selected are <code>null</code>.
+     *
+     * @param row      is the selected row.
+     * @param selected are the selected fields after the id, in the row's order.
+     * @return <code>CartItemSummary</code>
+     */
+    private static CartItemSummary toSummary(Object[] row, List<String> selected) {
+        Object[] values = new Object[COLUMNS.length];
+
+        for (int i = 0; i < COLUMNS.length; i++) {
+            int index = selected.indexOf(COLUMNS[i][0]);
+            values[i] = index >= 0 ? row[index + 1] : null;
+        }
+
+        return new CartItemSummary((Long) row[0], (Long) values[0], (String) values[1], (Double) values[2],
+                (Long) values[3], (Integer) values[4]);
+    }
+}
@@ -0,0 +1,99 @@
+package com.yashmerino.online.shop.repositories;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.model.PhotoBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Photo blobs' repository. The counters are only changed with atomic updates, never read and written back.
+ */
+@Repository
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlob, String> {
+
+    /**
+     * Adds a reference to a photo.
+     *
+     * @param hash is the photo's hash.
+     * @param now  is the current time.
+     * @return the number of updated rows, <code>0</code> if the photo isn't counted yet.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE photo_blobs b SET b.referenceCount = b.referenceCount + 1, b.updatedAt = :now WHERE b.hash = :hash")
+    int increment(@Param("hash") String hash, @Param("now") Instant now);
+
+    /**
+     * Starts counting the references to a photo with its first one.
+     *
+     * @param hash is the photo's hash.
+     * @param now  is the current time.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO photo_blobs (hash, reference_count, updated_at) VALUES (:hash, 1, :now)", nativeQuery = true)
+    void insert(@Param("hash") String hash, @Param("now") Instant now);
+
+    /**
+     * Removes a reference to a photo.
+     *
+     * @param hash is the photo's hash.
+     * @param now  is the current time.
+     * @return the number of updated rows.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE photo_blobs b SET b.referenceCount = b.referenceCount - 1, b.updatedAt = :now WHERE b.hash = :hash AND b.referenceCount > 0")
+    int decrement(@Param("hash") String hash, @Param("now") Instant now);
+
+    /**
+     * Returns the photos that weren't referenced since the cutoff.
+     *
+     * @param cutoff is the time the last reference must have been removed before.
+     * @return the photos' hashes.
+     */
+    @Query("SELECT b.hash FROM photo_blobs b WHERE b.referenceCount = 0 AND b.updatedAt < :cutoff")
+    List<String> findUnreferenced(@Param("cutoff") Instant cutoff);
+
+    /**
+     * Stops counting the references to a photo, unless it was referenced again since the cutoff.
+     *
+     * @param hash   is the photo's hash.
+     * @param cutoff is the time the last reference must have been removed before.
+     * @return the number of deleted rows.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM photo_blobs b WHERE b.hash = :hash AND b.referenceCount = 0 AND b.updatedAt < :cutoff")
+    int deleteUnreferenced(@Param("hash") String hash, @Param("cutoff") Instant cutoff);
+}
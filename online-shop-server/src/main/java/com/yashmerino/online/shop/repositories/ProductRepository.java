@@ -25,28 +25,73 @@ package com.yashmerino.online.shop.repositories;
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
 import com.yashmerino.online.shop.model.Product;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.yashmerino.online.shop.model.projections.CategoryCount;
+import com.yashmerino.online.shop.model.projections.ProductCategoryLink;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Products' repository.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     /**
-     * Return seller's products.
+     * Counts the seller's products.
      *
      * @param userId is the seller's id.
-     * @return List of Products.
+     * @return the number of products.
+     */
+    long countByUserId(Long userId);
+
+    /**
+     * Returns the categories of the passed products.
+     *
+     * @param productIds is the products' ids.
+     * @return List of product/category pairs.
+     */
+    @Query("SELECT p.id AS productId, c.id AS categoryId FROM products p JOIN p.categories c WHERE p.id IN :productIds")
+    List<ProductCategoryLink> findCategoryLinks(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Counts the products in every category that has any.
+     *
+     * @return List of category/count pairs.
+     */
+    @Query("SELECT c.id AS categoryId, count(p) AS products FROM products p JOIN p.categories c GROUP BY c.id")
+    List<CategoryCount> countByCategory();
+
+    /**
+     * Returns a product with its categories in a single query.
+     *
+     * @param id is the product's id.
+     * @return <code>Optional of Product</code>
+     */
+    @EntityGraph(attributePaths = "categories")
+    Optional<Product> findWithCategoriesById(Long id);
+
+    /**
+     * Returns the products with the passed ids and their categories in a single query.
+     *
+     * @param ids is the products' ids.
+     * @return list of products.
+     */
+    @EntityGraph(attributePaths = "categories")
+    List<Product> findAllWithCategoriesByIdIn(Collection<Long> ids);
+
+    /**
+     * Returns all the products with their categories in a single query.
+     *
+     * @return list of products.
      */
-    @Query(
-            value = "SELECT * FROM products p WHERE p.user_id = ?1",
-            countQuery = "SELECT count(*) FROM products p WHERE p.user_id = ?1",
-            nativeQuery = true
-    )
-    Page<Product> getProductsBySellerId(Long userId, Pageable pageable);
+    @EntityGraph(attributePaths = "categories")
+    @Query("SELECT p FROM products p")
+    List<Product> findAllWithCategories();
 }
@@ -0,0 +1,64 @@
+package com.yashmerino.online.shop.repositories;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.fields.SparseFields;
+import com.yashmerino.online.shop.model.projections.ProductSummary;
+import com.yashmerino.online.shop.utils.ProductCursor;
+import com.yashmerino.online.shop.utils.ProductFilter;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Products' queries that can't be expressed with Spring Data annotations.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Returns a page of product summaries with only the requested columns.
+     *
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     * @param fields   are the requested fields.
+     * @param pageable is the page details.
+     * @param count    is whether to count the products, a <code>Page</code> is returned if set.
+     * @return Slice of ProductSummaries.
+     */
+    Slice<ProductSummary> findSummaries(Long sellerId, ProductFilter filter, SparseFields fields, Pageable pageable, boolean count);
+
+    /**
+     * Returns the product summaries that follow the cursor.
+     *
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     * @param cursor   is the position to read after.
+     * @param limit    is the maximum number of summaries to return.
+     * @param fields   are the requested fields.
+     * @return List of ProductSummaries.
+     */
+    List<ProductSummary> findSummariesAfter(Long sellerId, ProductFilter filter, ProductCursor cursor, int limit, SparseFields fields);
+}
@@ -0,0 +1,272 @@
+package com.yashmerino.online.shop.repositories;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+
+import com.yashmerino.online.shop.fields.SparseFields;
+import com.yashmerino.online.shop.model.projections.ProductSummary;
+import com.yashmerino.online.shop.utils.ProductCursor;
+import com.yashmerino.online.shop.utils.ProductFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+/**
+ * Implementation for {@link ProductRepositoryCustom}
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    /**
+     * Entity manager.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Returns a page of product summaries with only the requested columns.
+     *
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     * @param fields   are the requested fields.
+     * @param pageable is the page details.
+     * @param count    is whether to count the products, a <code>Page</code> is returned if set.
+     * @return Slice of ProductSummaries.
+     */
+    @Override
+    public Slice<ProductSummary> findSummaries(Long sellerId, ProductFilter filter, SparseFields fields, Pageable pageable, boolean count) {
+        Columns columns = new Columns(fields, false);
+        String from = from(sellerId, filter);
+        String jpql = QueryUtils.applySorting(columns.select() + from, pageable.getSort(), "p");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+        bind(query, sellerId, filter);
+
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            // Without a count one extra row tells if there is a next page.
+            query.setMaxResults(count ? pageable.getPageSize() : pageable.getPageSize() + 1);
+        }
+
+        List<ProductSummary> summaries = columns.toSummaries(query.getResultList());
+
+        if (count) {
+            return PageableExecutionUtils.getPage(summaries, pageable, () -> countProducts(sellerId, filter, from));
+        }
+
+        boolean hasNext = pageable.isPaged() && summaries.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? summaries.subList(0, pageable.getPageSize()) : summaries, pageable, hasNext);
+    }
+
+    /**
+     * Returns the product summaries that follow the cursor.
+     * The predicates match the (price, id) and (user_id, price, id) indexes, so the page is read with an index seek
+     * and no count query is needed.
+     *
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     * @param cursor   is the position to read after.
+     * @param limit    is the maximum number of summaries to return.
+     * @param fields   are the requested fields.
+     * @return List of ProductSummaries.
+     */
+    @Override
+    public List<ProductSummary> findSummariesAfter(Long sellerId, ProductFilter filter, ProductCursor cursor, int limit, SparseFields fields) {
+        boolean byPrice = cursor.getOrder().isByPrice();
+        String comparison = cursor.getOrder().isDescending() ? "<" : ">";
+        String direction = cursor.getOrder().isDescending() ? " DESC" : "";
+
+        // The price is part of the next cursor, so it's read even if it isn't requested.
+        Columns columns = new Columns(fields, byPrice);
+        StringBuilder jpql = new StringBuilder(columns.select()).append(from(sellerId, filter));
+
+        if (!cursor.isFirst()) {
+            jpql.append(byPrice
+                    ? " AND (p.price " + comparison + " :price OR (p.price = :price AND p.id " + comparison + " :id))"
+                    : " AND p.id " + comparison + " :id");
+        }
+
+        jpql.append(byPrice ? " ORDER BY p.price" + direction + ", p.id" + direction : " ORDER BY p.id" + direction);
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        bind(query, sellerId, filter);
+
+        if (!cursor.isFirst()) {
+            query.setParameter("id", cursor.getId());
+
+            if (byPrice) {
+                query.setParameter("price", cursor.getPrice());
+            }
+        }
+
+        return columns.toSummaries(query.setMaxResults(limit).getResultList());
+    }
+
+    /**
+     * Counts the products.
+     *
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     * @param from     is the from and where clauses.
+     * @return the number of products.
+     */
+    private long countProducts(Long sellerId, ProductFilter filter, String from) {
+        TypedQuery<Long> query = entityManager.createQuery("SELECT count(p)" + from, Long.class);
+        bind(query, sellerId, filter);
+
+        return query.getSingleResult();
+    }
+
+    /**
+     * Builds the from and where clauses.
+     * The category is matched by joining the join table, whose (category, product) index drives the query;
+     * a product is linked to a category once, so the join doesn't duplicate rows.
+     *
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     * @return the from and where clauses.
+     */
+    private static String from(Long sellerId, ProductFilter filter) {
+        StringBuilder from = new StringBuilder(" FROM products p");
+
+        if (filter.getCategoryId() != null) {
+            from.append(" JOIN p.categories fc");
+        }
+
+        from.append(" WHERE 1 = 1");
+
+        if (sellerId != null) {
+            from.append(" AND p.user.id = :sellerId");
+        }
+
+        if (filter.getCategoryId() != null) {
+            from.append(" AND fc.id = :categoryId");
+        }
+
+        if (filter.getMinPrice() != null) {
+            from.append(" AND p.price >= :minPrice");
+        }
+
+        if (filter.getMaxPrice() != null) {
+            from.append(" AND p.price <= :maxPrice");
+        }
+
+        return from.toString();
+    }
+
+    /**
+     * Binds the parameters of the where clause.
+     *
+     * @param query    is the query.
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     */
+    private static void bind(Query query, Long sellerId, ProductFilter filter) {
+        if (sellerId != null) {
+            query.setParameter("sellerId", sellerId);
+        }
+
+        if (filter.getCategoryId() != null) {
+            query.setParameter("categoryId", filter.getCategoryId());
+        }
+
+        if (filter.getMinPrice() != null) {
+            query.setParameter("minPrice", filter.getMinPrice());
+        }
+
+        if (filter.getMaxPrice() != null) {
+            query.setParameter("maxPrice", filter.getMaxPrice());
+        }
+    }
+
+    /**
+     * Columns selected for a summary, the id is always selected.
+     *
+     * @param name        is whether the name is selected.
+     * @param price       is whether the price is selected.
+     * @param description is whether the description is selected.
+     */
+    private record Columns(boolean name, boolean price, boolean description) {
+
+        /**
+         * Builds the columns for the requested fields.
+         *
+         * @param fields    are the requested fields.
+         * @param withPrice is whether the price is selected anyway.
+         */
+        Columns(SparseFields fields, boolean withPrice) {
+            this(fields.includes("name"), withPrice || fields.includes("price"), fields.includes("description"));
+        }
+
+        /**
+         * Returns the select clause.
+         *
+         * @return the select clause.
+         */
+        String select() {
+            StringBuilder select = new StringBuilder("SELECT p.id");
+
+            if (name) {
+                select.append(", p.name");
+            }
+
+            if (price) {
+                select.append(", p.price");
+            }
+
+            if (description) {
+                select.append(", p.description");
+            }
+
+            return select.toString();
+        }
+
+        /**
+         * Maps the selected rows to summaries, the columns that weren't selected are <code>null</code>.
+         *
+         * @param rows are the selected rows.
+         * @return List of ProductSummaries.
+         */
+        List<ProductSummary> toSummaries(List<Object[]> rows) {
+            return rows.stream().map(row -> {
+                int index = 1;
+
+                String rowName = name ? (String) row[index++] : null;
+                Double rowPrice = price ? (Double) row[index++] : null;
+                String rowDescription = description ? (String) row[index] : null;
+
+                return new ProductSummary((Long) row[0], rowName, rowPrice, rowDescription);
+            }).toList();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.yashmerino.online.shop.repositories;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Refresh tokens' repository. A token is marked as used with an atomic update, so only one refresh can win the token.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Returns a refresh token by its hash.
+     *
+     * @param tokenHash is the token's hash.
+     * @return an <code>Optional</code> with the token.
+     */
+    Optional<RefreshToken> findByTokenHash(final String tokenHash);
+
+    /**
+     * Marks a refresh token as used unless it was already used or revoked.
+     *
+     * @param id is the token's id.
+     * @return the number of updated rows, <code>0</code> if the token can't be used anymore.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE refresh_tokens t SET t.used = true WHERE t.id = :id AND t.used = false AND t.revoked = false")
+    int markUsed(@Param("id") final Long id);
+
+    /**
+     * Revokes all the tokens of a family.
+     *
+     * @param family is the tokens' family.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE refresh_tokens t SET t.revoked = true WHERE t.family = :family")
+    void revokeFamily(@Param("family") final String family);
+
+    /**
+     * Revokes all the tokens of a user.
+     *
+     * @param userId is the user's id.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE refresh_tokens t SET t.revoked = true WHERE t.user.id = :userId")
+    void revokeByUserId(@Param("userId") final Long userId);
+
+    /**
+     * Deletes the expired tokens.
+     *
+     * @param now is the current time.
+     * @return the number of deleted tokens.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM refresh_tokens t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") final Instant now);
+}
@@ -25,16 +25,25 @@ package com.yashmerino.online.shop.repositories;
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
 import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.model.projections.UserCredentials;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Users' repository.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
     /**
      * Finds a user by username.
@@ -51,4 +60,63 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return <code>true</code> if exists and <code>false</code> otherwise.
      */
     Boolean existsByUsername(final String username);
+
+    /**
+     * Returns the version of a user's tokens.
+     *
+     * @param id is the user's id.
+     * @return an <code>Optional</code> with the version, empty if the user doesn't exist.
+     */
+    @Query("SELECT u.tokenVersion FROM users u WHERE u.id = :id")
+    Optional<Long> findTokenVersion(@Param("id") final Long id);
+
+    /**
+     * Returns the usernames that follow a username in alphabetical order.
+     *
+     * @param after    is the username to start after, empty to start from the first one.
+     * @param pageable is the page's size.
+     * @return the usernames.
+     */
+    @Query("SELECT u.username FROM users u WHERE u.username > :after ORDER BY u.username")
+    List<String> findUsernamesAfter(@Param("after") final String after, final Pageable pageable);
+
+    /**
+     * Returns which of the usernames are taken.
+     *
+     * @param usernames is the usernames.
+     * @return the taken usernames.
+     */
+    @Query("SELECT u.username FROM users u WHERE u.username IN :usernames")
+    Set<String> findExistingUsernames(@Param("usernames") final Collection<String> usernames);
+
+    /**
+     * Returns the credentials and roles of a user in a single query.
+     *
+     * @param username is the user's username.
+     * @return one row per role, empty if the user doesn't exist.
+     */
+    @Query("SELECT u.id AS id, c.id AS cartId, u.tokenVersion AS tokenVersion, u.username AS username, u.password AS password, r.name AS role " +
+            "FROM users u LEFT JOIN u.cart c LEFT JOIN u.roles r WHERE u.username = :username")
+    List<UserCredentials> findCredentialsByUsername(@Param("username") final String username);
+
+    /**
+     * Replaces a user's encoded password.
+     *
+     * @param username is the user's username.
+     * @param password is the new encoded password.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE users u SET u.password = :password WHERE u.username = :username")
+    void updatePassword(@Param("username") final String username, @Param("password") final String password);
+
+    /**
+     * Increments the version of a user's tokens.
+     *
+     * @param id is the user's id.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE users u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    void incrementTokenVersion(@Param("id") final Long id);
 }
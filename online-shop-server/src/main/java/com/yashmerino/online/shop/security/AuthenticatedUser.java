@@ -0,0 +1,91 @@
+package com.yashmerino.online.shop.security;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.model.Cart;
+import com.yashmerino.online.shop.model.User;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Authenticated user's principal. It's built from the user's row on login and from the JWT token's claims afterwards,
+ * so authenticated requests don't load the user.
+ */
+@Getter
+@SuppressWarnings("java:S2160")
+public class AuthenticatedUser extends org.springframework.security.core.userdetails.User {
+
+    /**
+     * User's id.
+     */
+    private final Long id;
+
+    /**
+     * User's cart id or <code>null</code> if the user has no cart.
+     */
+    private final Long cartId;
+
+    /**
+     * User's token version, tokens with an older version are rejected.
+     */
+    private final long tokenVersion;
+
+    /**
+     * Constructor.
+     *
+     * @param id           is the user's id.
+     * @param cartId       is the user's cart id.
+     * @param tokenVersion is the user's token version.
+     * @param username     is the user's username.
+     * @param password     is the user's encoded password, empty when built from a token.
+     * @param authorities  is the user's roles.
+     */
+    public AuthenticatedUser(Long id, Long cartId, long tokenVersion, String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, authorities);
+
+        this.id = id;
+        this.cartId = cartId;
+        this.tokenVersion = tokenVersion;
+    }
+
+    /**
+     * Creates the principal of a user.
+     *
+     * @param user is the user.
+     * @return <code>AuthenticatedUser</code>
+     */
+    public static AuthenticatedUser of(final User user) {
+        Cart cart = user.getCart();
+        Collection<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getName()))
+                .collect(Collectors.toSet());
+
+        return new AuthenticatedUser(user.getId(), cart != null ? cart.getId() : null, user.getTokenVersion(), user.getUsername(), user.getPassword(), authorities);
+    }
+}
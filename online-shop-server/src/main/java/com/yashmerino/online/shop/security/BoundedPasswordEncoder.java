@@ -0,0 +1,196 @@
+package com.yashmerino.online.shop.security;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.ServerBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password encoder that hashes on a bounded worker pool instead of the request threads.
+ * A burst of logins or registrations can only occupy the pool, requests that don't fit in its queue
+ * are rejected at once with {@link ServerBusyException}, so the other endpoints keep their threads.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Encoder that does the hashing.
+     */
+    private final PasswordEncoder delegate;
+
+    /**
+     * Worker pool.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Time the hashes wait in the queue.
+     */
+    private final Timer waitTimer;
+
+    /**
+     * Time of the password encodings.
+     */
+    private final Timer encodeTimer;
+
+    /**
+     * Time of the password checks.
+     */
+    private final Timer matchesTimer;
+
+    /**
+     * Number of rejected hashes.
+     */
+    private final Counter rejections;
+
+    /**
+     * Constructor.
+     *
+     * @param delegate      is the encoder that does the hashing.
+     * @param threads       is the number of worker threads.
+     * @param queueSize     is the maximum number of hashes waiting for a worker.
+     * @param meterRegistry is the meter registry.
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+
+        this.waitTimer = Timer.builder("password.hasher.wait").register(meterRegistry);
+        this.encodeTimer = Timer.builder("password.hasher.duration").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("password.hasher.duration").tag("operation", "matches").register(meterRegistry);
+        this.rejections = Counter.builder("password.hasher.rejected").register(meterRegistry);
+        Gauge.builder("password.hasher.queue.size", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hasher.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    /**
+     * Encodes a password on the worker pool.
+     *
+     * @param rawPassword is the password.
+     * @return the encoded password.
+     * @throws ServerBusyException if the pool's queue is full.
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return this.run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Checks a password on the worker pool.
+     *
+     * @param rawPassword     is the password.
+     * @param encodedPassword is the stored encoded password.
+     * @return <code>true</code> if the password matches.
+     * @throws ServerBusyException if the pool's queue is full.
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return this.run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks if an encoded password should be encoded again, e.g. because the BCrypt cost changed.
+     * It only reads the encoded password's prefix, so it runs on the caller's thread.
+     *
+     * @param encodedPassword is the stored encoded password.
+     * @return <code>true</code> if the password should be encoded again.
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Stops the worker pool.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a hash on the worker pool and waits for it.
+     *
+     * @param timer is the timer of the hash's operation.
+     * @param hash  is the hash.
+     * @param <T>   is the hash's result type.
+     * @return the hash's result.
+     */
+    private <T> T run(final Timer timer, final Callable<T> hash) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+
+                return timer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Password hasher queue is full, the request was rejected.");
+
+            throw new ServerBusyException("server_busy");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Interrupted while waiting for the password hasher.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw new IllegalStateException("Password hashing failed.", e.getCause());
+        }
+    }
+}
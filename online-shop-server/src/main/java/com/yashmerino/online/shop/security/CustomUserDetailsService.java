@@ -24,25 +24,25 @@ package com.yashmerino.online.shop.security;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
-import com.yashmerino.online.shop.model.Role;
-import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.model.projections.UserCredentials;
 import com.yashmerino.online.shop.repositories.UserRepository;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Objects;
 
 /**
- * Custom user details service.
+ * Custom user details service. It also stores the passwords that were encoded again on login,
+ * e.g. after the BCrypt cost changed.
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     /**
      * Users' repository.
@@ -59,7 +59,7 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     /**
-     * Loads a user by username.
+     * Loads a user's credentials and roles by username with a single query.
      *
      * @param username is the username to be loaded.
      * @return user's details.
@@ -67,18 +67,37 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(final String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("Username not found."));
+        List<UserCredentials> credentials = userRepository.findCredentialsByUsername(username);
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(), this.mapRolesToAuthorities(user.getRoles()));
+        if (credentials.isEmpty()) {
+            throw new UsernameNotFoundException("Username not found.");
+        }
+
+        UserCredentials user = credentials.get(0);
+        List<GrantedAuthority> authorities = credentials.stream()
+                .map(UserCredentials::getRole)
+                .filter(Objects::nonNull)
+                .distinct()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+
+        return new AuthenticatedUser(user.getId(), user.getCartId(), user.getTokenVersion(), user.getUsername(), user.getPassword(), authorities);
     }
 
     /**
-     * Maps user's roles to <code>GrantedAuthority</code> object.
+     * Replaces a user's encoded password after a successful login.
      *
-     * @param roles is the <code>Collection</code> of <code>Role</code>.
-     * @return a <code>Collection</code> of <code>GrantedAuthority</code>.
+     * @param user        is the user's details.
+     * @param newPassword is the new encoded password.
+     * @return user's details with the new password.
      */
-    private Collection<GrantedAuthority> mapRolesToAuthorities(final Set<Role> roles) {
-        return roles.stream().map(role -> new SimpleGrantedAuthority(role.getName())).collect(Collectors.toSet());
+    @Override
+    public UserDetails updatePassword(final UserDetails user, final String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+
+        AuthenticatedUser authenticatedUser = (AuthenticatedUser) user;
+
+        return new AuthenticatedUser(authenticatedUser.getId(), authenticatedUser.getCartId(), authenticatedUser.getTokenVersion(),
+                authenticatedUser.getUsername(), newPassword, authenticatedUser.getAuthorities());
     }
 }
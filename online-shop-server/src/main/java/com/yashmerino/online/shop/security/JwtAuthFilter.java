@@ -28,10 +28,12 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -43,6 +45,7 @@ import static com.yashmerino.online.shop.security.SecurityConstants.JWT_HEADER;
 /**
  * JWT Auth Filter.
  */
+@Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     /**
@@ -51,37 +54,64 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtProvider tokenGenerator;
 
     /**
-     * Custom user details service.
+     * Users' token versions.
      */
-    private final CustomUserDetailsService customUserDetailsService;
+    private final TokenVersions tokenVersions;
+
+    /**
+     * Public routes that never read the user, their tokens aren't verified.
+     */
+    private final RequestMatcher publicRoutes;
 
     /**
      * Constructor.
      *
-     * @param tokenGenerator           is the token generator.
-     * @param customUserDetailsService is the service that deals with user's details.
+     * @param tokenGenerator is the token generator.
+     * @param tokenVersions  is the users' token versions.
+     * @param publicRoutes   is the matcher of the public routes that never read the user.
      */
-    public JwtAuthFilter(JwtProvider tokenGenerator, CustomUserDetailsService customUserDetailsService) {
+    public JwtAuthFilter(JwtProvider tokenGenerator, TokenVersions tokenVersions, RequestMatcher publicRoutes) {
         this.tokenGenerator = tokenGenerator;
-        this.customUserDetailsService = customUserDetailsService;
+        this.tokenVersions = tokenVersions;
+        this.publicRoutes = publicRoutes;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String token = this.getJWTFromRequest(request);
 
-        if (StringUtils.hasText(token) && tokenGenerator.validateToken(token)) {
-            String username = tokenGenerator.getUsernameFromJWT(token);
+        // The routes are matched only for the requests with a token, a token sent to a public route is ignored.
+        if (StringUtils.hasText(token) && !publicRoutes.matches(request)) {
+            this.authenticate(request, token);
+        }
 
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
-            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Authenticates the request's user from the token.
+     * An invalid or revoked token authenticates nobody, the protected endpoints answer it as if there was no token.
+     *
+     * @param request is the client's request.
+     * @param token   is the JWT Token.
+     */
+    private void authenticate(HttpServletRequest request, String token) {
+        AuthenticatedUser user;
+
+        try {
+            user = tokenGenerator.getPrincipal(tokenGenerator.verify(token));
+        } catch (AuthenticationCredentialsNotFoundException e) {
+            log.debug("Request to {} has an invalid JWT Token.", request.getRequestURI());
+            return;
+        }
+
+        if (tokenVersions.isCurrent(user.getId(), user.getTokenVersion())) {
+            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
 
             authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
             SecurityContextHolder.getContext().setAuthentication(authenticationToken);
         }
-
-        filterChain.doFilter(request, response);
     }
 
     /**
@@ -24,32 +24,78 @@ package com.yashmerino.online.shop.security;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.yashmerino.online.shop.utils.ApplicationProperties;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static com.yashmerino.online.shop.security.SecurityConstants.JWT_EXPIRATION;
 import static io.jsonwebtoken.SignatureAlgorithm.HS512;
 
 /**
- * Class that generates JWT tokens.
+ * Class that generates and verifies JWT tokens.
+ * The signing key and the parser are built once, verified tokens are cached until they expire,
+ * so a client that sends the same token again skips the signature check.
  */
 @Component
 @SuppressWarnings("java:S6437")
 public class JwtProvider {
 
     /**
-     * Application properties.
+     * Message used when the token isn't valid.
      */
-    private ApplicationProperties applicationProperties;
+    private static final String INVALID_TOKEN_MESSAGE = "JWT Token is not valid, it could be because it's expired or incorrect.";
+
+    /**
+     * Claim with the user's id.
+     */
+    private static final String USER_ID_CLAIM = "uid";
+
+    /**
+     * Claim with the user's cart id.
+     */
+    private static final String CART_ID_CLAIM = "cid";
+
+    /**
+     * Claim with the user's roles.
+     */
+    private static final String ROLES_CLAIM = "roles";
+
+    /**
+     * Claim with the user's token version.
+     */
+    private static final String TOKEN_VERSION_CLAIM = "tv";
+
+    /**
+     * Key that signs the tokens.
+     */
+    private final Key signingKey;
+
+    /**
+     * Parser that verifies the tokens, it's thread-safe.
+     */
+    private final JwtParser parser;
+
+    /**
+     * Claims of the verified tokens, each one is evicted when its token expires.
+     */
+    private final Cache<String, Claims> verifiedTokens;
 
     /**
      * Constructor.
@@ -57,66 +103,133 @@ public class JwtProvider {
      * @param applicationProperties is the application's properties.
      */
     public JwtProvider(ApplicationProperties applicationProperties) {
-        this.applicationProperties = applicationProperties;
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(applicationProperties.jwtSecret));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(applicationProperties.jwtCacheMaxSize)
+                .expireAfter(new ExpiresWithToken())
+                .build();
     }
 
     /**
-     * Generates a token.
+     * Generates a token that carries the user's id, cart id, roles and token version,
+     * so the user doesn't have to be loaded on the following requests.
      *
-     * @param authentication is the authentication object.
+     * @param user is the authenticated user.
      * @return JWT Token.
      */
-    public String generateToken(Authentication authentication) {
-        String username = authentication.getName();
+    public String generateToken(AuthenticatedUser user) {
         Date currentDate = new Date();
         Date expiringDate = new Date(currentDate.getTime() + JWT_EXPIRATION);
+        List<String> roles = user.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList();
 
         return Jwts.builder()
-                .setSubject(username)
+                .setSubject(user.getUsername())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(CART_ID_CLAIM, user.getCartId())
+                .claim(ROLES_CLAIM, roles)
+                .claim(TOKEN_VERSION_CLAIM, user.getTokenVersion())
                 .setIssuedAt(currentDate)
                 .setExpiration(expiringDate)
-                .signWith(getSigningKey(), HS512)
+                .signWith(signingKey, HS512)
                 .compact();
     }
 
     /**
-     * Returns the username from a JWT Token.
+     * Verifies a JWT Token and returns its claims.
      *
      * @param token is the JWT token.
-     * @return the username.
+     * @return the token's <code>Claims</code>.
+     * @throws AuthenticationCredentialsNotFoundException if the token is expired or incorrect.
      */
-    public String getUsernameFromJWT(final String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
+    public Claims verify(final String token) {
+        Claims claims = verifiedTokens.getIfPresent(token);
+
+        if (claims != null && claims.getExpiration().after(new Date())) {
+            return claims;
+        }
+
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new AuthenticationCredentialsNotFoundException(INVALID_TOKEN_MESSAGE);
+        }
+
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(token, claims);
+        }
+
+        return claims;
     }
 
     /**
-     * Validates a JWT Token.
+     * Builds the user's principal from a verified token's claims.
      *
-     * @param token is the JWT token.
-     * @return <code>true</code> if JWT token is valid and <code>false</code> otherwise.
+     * @param claims is the token's claims.
+     * @return <code>AuthenticatedUser</code>
+     * @throws AuthenticationCredentialsNotFoundException if the token doesn't carry the user's id, e.g. it was issued before the claims were added.
      */
-    public boolean validateToken(final String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            throw new AuthenticationCredentialsNotFoundException("JWT Token is not valid, it could be because it's expired or incorrect.");
+    public AuthenticatedUser getPrincipal(final Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        Number cartId = claims.get(CART_ID_CLAIM, Number.class);
+        Number tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Number.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+
+        if (userId == null || tokenVersion == null || roles == null) {
+            throw new AuthenticationCredentialsNotFoundException(INVALID_TOKEN_MESSAGE);
         }
+
+        Collection<GrantedAuthority> authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.toString()))
+                .toList();
+
+        return new AuthenticatedUser(userId.longValue(), cartId != null ? cartId.longValue() : null, tokenVersion.longValue(), claims.getSubject(), "", authorities);
     }
 
     /**
-     * Gets signing key from JWT secret.
-     *
-     * @return <code>Key</code>.
+     * Expires a cached token together with the token itself.
      */
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(applicationProperties.jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static final class ExpiresWithToken implements Expiry<String, Claims> {
+
+        /**
+         * Expires a verified token's claims when the token expires.
+         *
+         * @param token       is the JWT Token.
+         * @param claims      are the token's claims.
+         * @param currentTime is the current time in nanoseconds.
+         * @return the time left until the token expires, in nanoseconds.
+         */
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()));
+        }
+
+        /**
+         * Expires replaced claims when their token expires.
+         *
+         * @param token           is the JWT Token.
+         * @param claims          are the token's claims.
+         * @param currentTime     is the current time in nanoseconds.
+         * @param currentDuration is the time left before the update, in nanoseconds.
+         * @return the time left until the token expires, in nanoseconds.
+         */
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+
+        /**
+         * Keeps the expiration on reads, a token doesn't live longer because it's used.
+         *
+         * @param token           is the JWT Token.
+         * @param claims          are the token's claims.
+         * @param currentTime     is the current time in nanoseconds.
+         * @param currentDuration is the time left until the token expires, in nanoseconds.
+         * @return the unchanged time left, in nanoseconds.
+         */
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,112 @@
+package com.yashmerino.online.shop.security;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matcher of the public routes that never read the user, e.g. <code>GET /api/product/*</code>.
+ * The request's path is parsed once and checked against the patterns of its method and the patterns of any method.
+ */
+public class PublicRoutes implements RequestMatcher {
+
+    /**
+     * Key of the patterns that match any method.
+     */
+    private static final String ANY_METHOD = "*";
+
+    /**
+     * Patterns by method.
+     */
+    private final Map<String, List<PathPattern>> patterns = new HashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param routes are the routes, either <code>METHOD pattern</code> or just a pattern that matches any method.
+     */
+    public PublicRoutes(String[] routes) {
+        for (String route : routes) {
+            String[] parts = route.trim().split("\\s+");
+
+            if (parts[0].isEmpty()) {
+                continue;
+            }
+
+            String method = parts.length > 1 ? parts[0].toUpperCase() : ANY_METHOD;
+            String pattern = parts.length > 1 ? parts[1] : parts[0];
+
+            patterns.computeIfAbsent(method, key -> new ArrayList<>()).add(PathPatternParser.defaultInstance.parse(pattern));
+        }
+    }
+
+    /**
+     * Checks if the request goes to a public route.
+     *
+     * @param request is the client's request.
+     * @return <code>true</code> if the request goes to a public route.
+     */
+    @Override
+    public boolean matches(HttpServletRequest request) {
+        List<PathPattern> methodPatterns = patterns.get(request.getMethod());
+        List<PathPattern> anyMethodPatterns = patterns.get(ANY_METHOD);
+
+        if (methodPatterns == null && anyMethodPatterns == null) {
+            return false;
+        }
+
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+
+        return matches(methodPatterns, path) || matches(anyMethodPatterns, path);
+    }
+
+    /**
+     * Checks if a path matches any of the patterns.
+     *
+     * @param patterns are the patterns, can be <code>null</code>.
+     * @param path     is the path.
+     * @return <code>true</code> if a pattern matches the path.
+     */
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        if (patterns != null) {
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
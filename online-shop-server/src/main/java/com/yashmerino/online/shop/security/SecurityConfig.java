@@ -24,12 +24,19 @@ package com.yashmerino.online.shop.security;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.exceptions.ServerBusyException;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
 import com.yashmerino.online.shop.utils.Role;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -70,21 +77,35 @@ public class SecurityConfig {
      * Endpoints for Actuator.
      */
     private static final String[] ACTUATOR_WHITELIST = {
-        "/actuator/**",
         "/actuator/health",
         "/actuator/info"
     };
 
+    /**
+     * Actuator's metrics endpoints, they expose the application's internals so they're only for admins.
+     */
+    private static final String ACTUATOR_METRICS_ENDPOINTS = "/actuator/metrics/**";
+
     /**
      * Regex for all the endpoints related to authentication/authorization.
      */
     private static final String AUTH_ALL_ENDPOINTS = "/api/auth/**";
 
+    /**
+     * Logout endpoint, it's the only authentication endpoint that needs a user.
+     */
+    private static final String LOGOUT_ENDPOINT = "/api/auth/logout";
+
     /**
      * Regex for all the endpoints related to products.
      */
     private static final String PRODUCTS_ALL_ENDPOINTS = "/api/product/**";
 
+    /**
+     * Endpoint of the batch product lookup, it only reads products.
+     */
+    private static final String PRODUCTS_BATCH_ENDPOINT = "/api/product/batch";
+
     /**
      * Regex for all the endpoints related to cart items.
      */
@@ -100,6 +121,11 @@ public class SecurityConfig {
      */
     private static final String USERS_ALL_ENDPOINTS = "/api/user/**";
 
+    /**
+     * Users' import endpoint, only for admins.
+     */
+    private static final String USERS_IMPORT_ENDPOINT = "/api/user/import";
+
     /**
      * Jwt Auth Entry Point to handle exceptions.
      */
@@ -111,32 +137,33 @@ public class SecurityConfig {
     private final JwtProvider tokenGenerator;
 
     /**
-     * Custom user details service.
+     * Users' token versions.
      */
-    private final CustomUserDetailsService customUserDetailsService;
+    private final TokenVersions tokenVersions;
 
     /**
      * Constructor.
      *
      * @param jwtAuthEntryPoint        is the auth entry point.
      * @param tokenGenerator           is the token generator.
-     * @param customUserDetailsService is the service that deals with user's details.
+     * @param tokenVersions            is the users' token versions.
      */
-    public SecurityConfig(JwtAuthEntryPoint jwtAuthEntryPoint, JwtProvider tokenGenerator, CustomUserDetailsService customUserDetailsService) {
+    public SecurityConfig(JwtAuthEntryPoint jwtAuthEntryPoint, JwtProvider tokenGenerator, TokenVersions tokenVersions) {
         this.jwtAuthEntryPoint = jwtAuthEntryPoint;
         this.tokenGenerator = tokenGenerator;
-        this.customUserDetailsService = customUserDetailsService;
+        this.tokenVersions = tokenVersions;
     }
 
     /**
      * Security filter.
      *
-     * @param http is the Http Security config object.
+     * @param http          is the Http Security config object.
+     * @param jwtAuthFilter is the JWT Auth Filter.
      * @return Security Filter Chain.
      * @throws Exception if certain settings couldn't be changed.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtAuthFilter jwtAuthFilter) throws Exception {
         http
                 .cors().and()
                 .csrf().disable()
@@ -147,24 +174,30 @@ public class SecurityConfig {
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
                 .authorizeHttpRequests(requests -> requests
+                        .requestMatchers(HttpMethod.POST, LOGOUT_ENDPOINT).authenticated()
                         .requestMatchers(HttpMethod.POST, AUTH_ALL_ENDPOINTS).permitAll()
                         .requestMatchers(HttpMethod.GET, AUTH_ALL_ENDPOINTS).permitAll()
                         .requestMatchers(HttpMethod.GET, USERS_ALL_ENDPOINTS).permitAll()
                         .requestMatchers(HttpMethod.GET, PRODUCTS_ALL_ENDPOINTS).permitAll()
+                        .requestMatchers(HttpMethod.POST, USERS_IMPORT_ENDPOINT).hasAuthority(Role.ADMIN.name())
                         .requestMatchers(HttpMethod.POST, USERS_ALL_ENDPOINTS).hasAnyAuthority(Role.USER.name(), Role.SELLER.name())
                         .requestMatchers(HttpMethod.PUT, USERS_ALL_ENDPOINTS).hasAnyAuthority(Role.USER.name(), Role.SELLER.name())
                         .requestMatchers(CART_ITEMS_ALL_ENDPOINTS).hasAnyAuthority(Role.SELLER.name(), Role.USER.name())
+                        .requestMatchers(HttpMethod.POST, PRODUCTS_BATCH_ENDPOINT).permitAll()
                         .requestMatchers(HttpMethod.POST, PRODUCTS_ALL_ENDPOINTS).hasAuthority(Role.SELLER.name())
                         .requestMatchers(HttpMethod.PUT, PRODUCTS_ALL_ENDPOINTS).hasAuthority(Role.SELLER.name())
                         .requestMatchers(HttpMethod.DELETE, PRODUCTS_ALL_ENDPOINTS).hasAuthority(Role.SELLER.name())
                         .requestMatchers(HttpMethod.GET, CATEGORIES_ALL_ENDPOINTS).hasAnyAuthority(Role.SELLER.name(), Role.USER.name())
+                        .requestMatchers(HttpMethod.POST, CATEGORIES_ALL_ENDPOINTS).hasAuthority(Role.ADMIN.name())
                         .requestMatchers(SWAGGER_WHITELIST).permitAll()
                         .requestMatchers(ACTUATOR_WHITELIST).permitAll()
+                        .requestMatchers(ACTUATOR_METRICS_ENDPOINTS).hasAuthority(Role.ADMIN.name())
                         .anyRequest()
                         .authenticated())
-                .httpBasic();
+                .httpBasic()
+                .authenticationEntryPoint(jwtAuthEntryPoint);
 
-        http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -201,17 +234,76 @@ public class SecurityConfig {
     }
 
     /**
-     * Generates an BCrypt password encoder.
+     * Gives the provider that checks the username and password.
+     * It reports unknown usernames as such, so login doesn't have to check the username's existence with a query of its own.
+     * A busy password hasher is reported as an authentication failure, so the filter chain's entry point can answer it with 503.
      *
+     * @param customUserDetailsService is the service that deals with user's details.
+     * @param passwordEncoder          is the password encoder.
+     * @return authentication provider.
+     */
+    @Bean
+    DaoAuthenticationProvider authenticationProvider(CustomUserDetailsService customUserDetailsService, PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider() {
+
+            /**
+             * Authenticates the user, reporting a busy password hasher as an authentication failure caused by it.
+             *
+             * @param authentication is the authentication request.
+             * @return the authenticated user.
+             */
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                try {
+                    return super.authenticate(authentication);
+                } catch (ServerBusyException e) {
+                    throw new InternalAuthenticationServiceException(e.getMessage(), e);
+                }
+            }
+        };
+        provider.setUserDetailsService(customUserDetailsService);
+        provider.setUserDetailsPasswordService(customUserDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setHideUserNotFoundExceptions(false);
+
+        return provider;
+    }
+
+    /**
+     * Generates an BCrypt password encoder that hashes on a bounded worker pool.
+     *
+     * @param applicationProperties is the application's properties.
+     * @param meterRegistry         is the meter registry.
      * @return an BCrypt password encoder.
      */
+    @Bean(destroyMethod = "shutdown")
+    BoundedPasswordEncoder passwordEncoder(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(applicationProperties.passwordBcryptStrength),
+                applicationProperties.passwordHasherThreads, applicationProperties.passwordHasherQueueSize, meterRegistry);
+    }
+
+    /**
+     * Gives the JWT Auth Filter, it doesn't verify the tokens sent to the configured public routes.
+     *
+     * @param applicationProperties is the application's properties.
+     * @return JWT Auth Filter.
+     */
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public JwtAuthFilter jwtAuthenticationFilter(ApplicationProperties applicationProperties) {
+        return new JwtAuthFilter(tokenGenerator, tokenVersions, new PublicRoutes(applicationProperties.jwtPublicRoutes));
     }
 
+    /**
+     * Keeps the servlet container from registering the JWT Auth Filter, it only runs in the security filter chain.
+     *
+     * @param jwtAuthFilter is the JWT Auth Filter.
+     * @return the disabled filter registration.
+     */
     @Bean
-    public JwtAuthFilter jwtAuthenticationFilter() {
-        return new JwtAuthFilter(tokenGenerator, customUserDetailsService);
+    FilterRegistrationBean<JwtAuthFilter> jwtAuthFilterRegistration(JwtAuthFilter jwtAuthFilter) {
+        FilterRegistrationBean<JwtAuthFilter> registration = new FilterRegistrationBean<>(jwtAuthFilter);
+        registration.setEnabled(false);
+
+        return registration;
     }
 }
@@ -0,0 +1,86 @@
+package com.yashmerino.online.shop.security;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yashmerino.online.shop.repositories.UserRepository;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Users' token versions. A token carries the version of its user at login, increasing the version revokes all the user's tokens.
+ * The versions are cached for a short time, so the token check doesn't query the database on every request.
+ */
+@Component
+public class TokenVersions {
+
+    /**
+     * Users' repository.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Current token versions by user id.
+     */
+    private final Cache<Long, Long> versions;
+
+    /**
+     * Constructor.
+     *
+     * @param userRepository        is the users' repository.
+     * @param applicationProperties is the application's properties.
+     */
+    public TokenVersions(UserRepository userRepository, ApplicationProperties applicationProperties) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(applicationProperties.jwtCacheMaxSize)
+                .expireAfterWrite(applicationProperties.jwtTokenVersionTtl)
+                .build();
+    }
+
+    /**
+     * Checks if a token version is the user's current one.
+     *
+     * @param userId  is the user's id.
+     * @param version is the token's version.
+     * @return <code>true</code> if the token wasn't revoked and the user still exists.
+     */
+    public boolean isCurrent(final Long userId, final long version) {
+        Long current = versions.get(userId, id -> userRepository.findTokenVersion(id).orElse(null));
+
+        return current != null && current == version;
+    }
+
+    /**
+     * Revokes all the tokens of a user.
+     *
+     * @param userId is the user's id.
+     */
+    public void revoke(final Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        versions.invalidate(userId);
+    }
+}
@@ -25,28 +25,36 @@ package com.yashmerino.online.shop.services;
 
 import com.yashmerino.online.shop.exceptions.UserDoesntExistException;
 import com.yashmerino.online.shop.exceptions.UsernameAlreadyTakenException;
+import com.yashmerino.online.shop.cache.RoleCatalog;
+import com.yashmerino.online.shop.cache.UsernameFilter;
+import com.yashmerino.online.shop.exceptions.InvalidRefreshTokenException;
+import com.yashmerino.online.shop.exceptions.ServerBusyException;
 import com.yashmerino.online.shop.model.Cart;
-import com.yashmerino.online.shop.model.Role;
+import com.yashmerino.online.shop.model.RefreshToken;
 import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.model.dto.auth.AuthResponseDTO;
 import com.yashmerino.online.shop.model.dto.auth.LoginDTO;
+import com.yashmerino.online.shop.model.dto.auth.RefreshTokenDTO;
 import com.yashmerino.online.shop.model.dto.auth.RegisterDTO;
 import com.yashmerino.online.shop.model.dto.auth.UserInfoDTO;
-import com.yashmerino.online.shop.repositories.RoleRepository;
 import com.yashmerino.online.shop.repositories.UserRepository;
+import com.yashmerino.online.shop.security.AuthenticatedUser;
 import com.yashmerino.online.shop.security.JwtProvider;
+import com.yashmerino.online.shop.security.TokenVersions;
 import com.yashmerino.online.shop.services.interfaces.AuthService;
-import com.yashmerino.online.shop.services.interfaces.CartService;
-import jakarta.persistence.EntityNotFoundException;
+import com.yashmerino.online.shop.services.interfaces.RefreshTokenService;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Implementation for {@link AuthService}
@@ -65,9 +73,9 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
 
     /**
-     * Roles' repository.
+     * Role catalog.
      */
-    private final RoleRepository roleRepository;
+    private final RoleCatalog roleCatalog;
 
     /**
      * Password encoder.
@@ -80,27 +88,41 @@ public class AuthServiceImpl implements AuthService {
     private final JwtProvider jwtProvider;
 
     /**
-     * Cart service.
+     * Users' token versions.
      */
-    private final CartService cartService;
+    private final TokenVersions tokenVersions;
+
+    /**
+     * Refresh token service.
+     */
+    private final RefreshTokenService refreshTokenService;
+
+    /**
+     * Filter of the taken usernames.
+     */
+    private final UsernameFilter usernameFilter;
 
     /**
      * Constructor.
      *
      * @param authenticationManager is the auth manager.
      * @param userRepository        is the users repository.
-     * @param roleRepository        is the roles repository.
+     * @param roleCatalog           is the role catalog.
      * @param passwordEncoder       is the password encoder object.
      * @param jwtProvider           is the jwt provider.
-     * @param cartService           is the cart service.
+     * @param tokenVersions         is the users' token versions.
+     * @param refreshTokenService   is the refresh token service.
+     * @param usernameFilter        is the filter of the taken usernames.
      */
-    public AuthServiceImpl(AuthenticationManager authenticationManager, UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, JwtProvider jwtProvider, CartService cartService) {
+    public AuthServiceImpl(AuthenticationManager authenticationManager, UserRepository userRepository, RoleCatalog roleCatalog, PasswordEncoder passwordEncoder, JwtProvider jwtProvider, TokenVersions tokenVersions, RefreshTokenService refreshTokenService, UsernameFilter usernameFilter) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleCatalog = roleCatalog;
         this.passwordEncoder = passwordEncoder;
         this.jwtProvider = jwtProvider;
-        this.cartService = cartService;
+        this.tokenVersions = tokenVersions;
+        this.refreshTokenService = refreshTokenService;
+        this.usernameFilter = usernameFilter;
     }
 
     /**
@@ -108,7 +130,7 @@ public class AuthServiceImpl implements AuthService {
      */
     @Override
     public void register(RegisterDTO registerDTO) {
-        if (userRepository.existsByUsername(registerDTO.getUsername())) { // NOSONAR - The user repository cannot be null.
+        if (!this.isUsernameAvailable(registerDTO.getUsername())) {
             throw new UsernameAlreadyTakenException("username_taken");
         }
 
@@ -116,43 +138,107 @@ public class AuthServiceImpl implements AuthService {
         user.setUsername(registerDTO.getUsername());
         user.setEmail(registerDTO.getEmail());
         user.setPassword(passwordEncoder.encode(registerDTO.getPassword()));
+        user.setRoles(new HashSet<>(List.of(roleCatalog.getRole(registerDTO.getRole()))));
 
-        Optional<Role> roleOptional = roleRepository.findByName(registerDTO.getRole().name());
+        Cart cart = new Cart();
+        cart.setUser(user);
+        user.setCart(cart);
 
+        // The cart is persisted through the cascade, both inserts run in the save's transaction.
+        // The unique username rejects the races the filter and the check above can't see.
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new UsernameAlreadyTakenException("username_taken");
+        }
 
-        if (roleOptional.isPresent()) {
-            Role role = roleOptional.get();
-            user.setRoles(new HashSet<>(List.of(role)));
-        } else {
-            throw new EntityNotFoundException("role_not_found");
+        usernameFilter.put(user.getUsername());
+    }
+
+    /**
+     * Checks if a username is free. The database is only queried if the username filter might contain it.
+     *
+     * @param username is the username.
+     * @return <code>true</code> if the username is free.
+     */
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        if (!usernameFilter.mightContain(username)) {
+            return true;
         }
 
-        Cart cart = new Cart();
-        cartService.save(cart);
-        userRepository.save(user);
+        boolean exists = userRepository.existsByUsername(username); // NOSONAR - The user repository cannot be null.
 
-        user.setCart(cart);
-        userRepository.save(user);
+        if (!exists) {
+            usernameFilter.falsePositive();
+        }
 
-        cart.setUser(user);
-        cartService.save(cart);
+        return !exists;
     }
 
     /**
-     * Logins the user.
+     * Logins the user. The user's credentials and roles are read with a single query,
+     * an unknown username is reported by the authentication itself.
      *
      * @param loginDTO is the login DTO.
-     * @return JWT Token.
+     * @return JWT Token and refresh token.
      */
     @Override
-    public String login(LoginDTO loginDTO) {
-        if (!userRepository.existsByUsername(loginDTO.getUsername())) {
+    public AuthResponseDTO login(LoginDTO loginDTO) {
+        Authentication authentication;
+
+        try {
+            authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginDTO.getUsername(), loginDTO.getPassword()));
+        } catch (UsernameNotFoundException e) {
             throw new UserDoesntExistException("username_not_found");
+        } catch (InternalAuthenticationServiceException e) {
+            if (e.getCause() instanceof ServerBusyException busy) {
+                throw busy;
+            }
+
+            throw e;
         }
 
-        Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(loginDTO.getUsername(), loginDTO.getPassword()));
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
-        return jwtProvider.generateToken(authentication);
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        String refreshToken = refreshTokenService.issue(userRepository.getReferenceById(user.getId()));
+
+        return new AuthResponseDTO(jwtProvider.generateToken(user), refreshToken);
+    }
+
+    /**
+     * Exchanges a refresh token for a new JWT Token and a new refresh token, without checking the password.
+     *
+     * @param refreshTokenDTO is the refresh token DTO.
+     * @return JWT Token and refresh token.
+     */
+    @Override
+    public AuthResponseDTO refresh(RefreshTokenDTO refreshTokenDTO) {
+        RefreshToken usedToken = refreshTokenService.use(refreshTokenDTO.getRefreshToken());
+        User user = userRepository.findById(usedToken.getUser().getId()).orElseThrow(() -> new InvalidRefreshTokenException("invalid_refresh_token"));
+
+        String refreshToken = refreshTokenService.issue(user, usedToken.getFamily());
+
+        return new AuthResponseDTO(jwtProvider.generateToken(AuthenticatedUser.of(user)), refreshToken);
+    }
+
+    /**
+     * Logouts the current user, revoking all the user's JWT and refresh tokens.
+     */
+    @Override
+    public void logout() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        Long userId;
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            userId = user.getId();
+        } else {
+            userId = userRepository.findByUsername(authentication.getName()).orElseThrow(() -> new UserDoesntExistException("username_not_found")).getId();
+        }
+
+        tokenVersions.revoke(userId);
+        refreshTokenService.revokeAll(userId);
+        SecurityContextHolder.clearContext();
     }
 }
@@ -25,15 +25,18 @@ package com.yashmerino.online.shop.services;
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
 import com.yashmerino.online.shop.model.Cart;
+import com.yashmerino.online.shop.fields.SparseFields;
 import com.yashmerino.online.shop.model.CartItem;
 import com.yashmerino.online.shop.model.Product;
 import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.model.projections.CartItemSummary;
 import com.yashmerino.online.shop.repositories.CartItemRepository;
 import com.yashmerino.online.shop.repositories.UserRepository;
 import com.yashmerino.online.shop.services.interfaces.CartItemService;
+import com.yashmerino.online.shop.utils.TotalMode;
 import jakarta.persistence.EntityNotFoundException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -86,7 +89,7 @@ public class CartItemServiceImpl implements CartItemService {
      */
     @Override
     public void deleteCartItem(final Long id) {
-        Optional<CartItem> cartItemOptional = cartItemRepository.findById(id);
+        Optional<CartItem> cartItemOptional = cartItemRepository.findWithCartById(id);
 
         if (cartItemOptional.isPresent()) {
             CartItem cartItem = cartItemOptional.get();
@@ -115,7 +118,7 @@ public class CartItemServiceImpl implements CartItemService {
      */
     @Override
     public void changeQuantity(final Long id, final Integer quantity) {
-        Optional<CartItem> cartItemOptional = cartItemRepository.findById(id);
+        Optional<CartItem> cartItemOptional = cartItemRepository.findWithCartById(id);
 
         if (cartItemOptional.isPresent()) {
             CartItem cartItem = cartItemOptional.get();
@@ -142,7 +145,7 @@ public class CartItemServiceImpl implements CartItemService {
      */
     @Override
     public CartItem getCartItem(final Long id) {
-        Optional<CartItem> cartItemOptional = cartItemRepository.findById(id);
+        Optional<CartItem> cartItemOptional = cartItemRepository.findWithCartById(id);
 
         if (cartItemOptional.isPresent()) {
             CartItem cartItem = cartItemOptional.get();
@@ -163,13 +166,15 @@ public class CartItemServiceImpl implements CartItemService {
     /**
      * Returns all the cart items.
      *
-     * @param username is the user's username.
-     * @param pageable is the page object.
+     * @param username  is the user's username.
+     * @param pageable  is the page object.
+     * @param totalMode is how the total is computed, carts are small so {@link TotalMode#APPROX} counts exactly.
+     * @param fields    are the requested fields.
      *
-     * @return <code>Set of CartItem</code>
+     * @return <code>Page of CartItemSummary</code>, or a <code>Slice</code> without totals for {@link TotalMode#NONE}.
      */
     @Override
-    public Page<CartItem> getCartItems(String username, Pageable pageable) {
+    public Slice<CartItemSummary> getCartItems(String username, Pageable pageable, TotalMode totalMode, SparseFields fields) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String currentUserUsername = auth.getName();
 
@@ -177,7 +182,7 @@ public class CartItemServiceImpl implements CartItemService {
             throw new AccessDeniedException("access_denied");
         }
 
-        return cartItemRepository.findAllByCartUserUsername(username, pageable);
+        return cartItemRepository.findSummaries(username, fields, pageable, totalMode != TotalMode.NONE);
     }
 
     /**
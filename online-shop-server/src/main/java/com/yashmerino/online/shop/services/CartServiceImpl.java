@@ -62,6 +62,17 @@ public class CartServiceImpl implements CartService {
         return cartRepository.findById(id);
     }
 
+    /**
+     * Returns a reference to a cart without loading it.
+     *
+     * @param id is the cart's id.
+     * @return <code>Cart</code>
+     */
+    @Override
+    public Cart getReference(Long id) {
+        return cartRepository.getReferenceById(id);
+    }
+
     /**
      * Saves a cart.
      *
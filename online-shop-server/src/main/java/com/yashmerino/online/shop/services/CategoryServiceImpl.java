@@ -24,8 +24,8 @@ package com.yashmerino.online.shop.services;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.cache.CategoryCatalog;
 import com.yashmerino.online.shop.model.Category;
-import com.yashmerino.online.shop.repositories.CategoryRepository;
 import com.yashmerino.online.shop.services.interfaces.CategoryService;
 import org.springframework.stereotype.Service;
 
@@ -38,17 +38,17 @@ import java.util.List;
 public class CategoryServiceImpl implements CategoryService {
 
     /**
-     * Category repository.
+     * Category catalog.
      */
-    private final CategoryRepository categoryRepository;
+    private final CategoryCatalog categoryCatalog;
 
     /**
      * Constructor to inject dependencies.
      *
-     * @param categoryRepository is the category repository.
+     * @param categoryCatalog is the category catalog.
      */
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
-        this.categoryRepository = categoryRepository;
+    public CategoryServiceImpl(CategoryCatalog categoryCatalog) {
+        this.categoryCatalog = categoryCatalog;
     }
 
     /**
@@ -58,6 +58,24 @@ public class CategoryServiceImpl implements CategoryService {
      */
     @Override
     public List<Category> getCategories() {
-        return categoryRepository.findAll();
+        return categoryCatalog.getCategories();
+    }
+
+    /**
+     * Returns the JSON of the categories list.
+     *
+     * @return the JSON as UTF-8 bytes.
+     */
+    @Override
+    public byte[] getCategoriesJson() {
+        return categoryCatalog.getCategoriesJson();
+    }
+
+    /**
+     * Reloads the categories after they were changed in the database.
+     */
+    @Override
+    public void refreshCategories() {
+        categoryCatalog.refresh();
     }
 }
@@ -38,7 +38,7 @@ public class ProductIndexingRunner implements ApplicationListener<ApplicationRea
         }
 
         try {
-            List<Product> products = productRepository.findAll();
+            List<Product> products = productRepository.findAllWithCategories();
             log.info("Found {} products. Starting Algolia reindex.", products.size());
             algoliaService.populateIndex(products);
             log.info("Algolia reindex finished successfully.");
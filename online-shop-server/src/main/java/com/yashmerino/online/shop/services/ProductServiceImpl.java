@@ -24,31 +24,64 @@ package com.yashmerino.online.shop.services;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.cache.CatalogVersions;
+import com.yashmerino.online.shop.cache.CategoryCatalog;
+import com.yashmerino.online.shop.cache.CategoryFacets;
+import com.yashmerino.online.shop.cache.PhotoCache;
+import com.yashmerino.online.shop.cache.ProductCache;
+import com.yashmerino.online.shop.cache.ProductCounters;
 import com.yashmerino.online.shop.exceptions.CouldntUploadPhotoException;
+import com.yashmerino.online.shop.exceptions.PreconditionFailedException;
+import com.yashmerino.online.shop.fields.SparseFields;
 import com.yashmerino.online.shop.model.Cart;
 import com.yashmerino.online.shop.model.CartItem;
+import com.yashmerino.online.shop.model.Category;
 import com.yashmerino.online.shop.model.Product;
+import com.yashmerino.online.shop.model.ProductPhoto;
 import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.model.dto.CategoryFacetDTO;
 import com.yashmerino.online.shop.model.dto.ProductDTO;
+import com.yashmerino.online.shop.model.projections.ProductCategoryLink;
+import com.yashmerino.online.shop.model.projections.ProductSummary;
 import com.yashmerino.online.shop.repositories.CartItemRepository;
+import com.yashmerino.online.shop.repositories.ProductPhotoRepository;
 import com.yashmerino.online.shop.repositories.ProductRepository;
+import com.yashmerino.online.shop.security.AuthenticatedUser;
+import com.yashmerino.online.shop.services.interfaces.CartService;
 import com.yashmerino.online.shop.services.interfaces.ProductService;
 import com.yashmerino.online.shop.services.interfaces.UserService;
+import com.yashmerino.online.shop.storage.PhotoReferences;
+import com.yashmerino.online.shop.storage.PhotoStorage;
+import com.yashmerino.online.shop.storage.StoredPhoto;
+import com.yashmerino.online.shop.storage.ThumbnailGenerator;
+import com.yashmerino.online.shop.utils.ProductCursor;
+import com.yashmerino.online.shop.utils.ProductFilter;
 import com.yashmerino.online.shop.utils.RequestBodyToEntityConverter;
 import com.yashmerino.online.shop.utils.Role;
+import com.yashmerino.online.shop.utils.TotalMode;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation for product service.
@@ -66,22 +99,99 @@ public class ProductServiceImpl implements ProductService {
      */
     private final UserService userService;
 
+    /**
+     * Cart service.
+     */
+    private final CartService cartService;
+
     /**
      * Cart item repository.
      */
     private final CartItemRepository cartItemRepository;
 
+    /**
+     * Product cache.
+     */
+    private final ProductCache productCache;
+
+    /**
+     * Catalog versions.
+     */
+    private final CatalogVersions catalogVersions;
+
+    /**
+     * Category catalog.
+     */
+    private final CategoryCatalog categoryCatalog;
+
+    /**
+     * Product counters.
+     */
+    private final ProductCounters productCounters;
+
+    /**
+     * Category facets.
+     */
+    private final CategoryFacets categoryFacets;
+
+    /**
+     * Products' photos repository.
+     */
+    private final ProductPhotoRepository productPhotoRepository;
+
+    /**
+     * Photo references.
+     */
+    private final PhotoReferences photoReferences;
+
+    /**
+     * Photo storage.
+     */
+    private final PhotoStorage photoStorage;
+
+    /**
+     * Thumbnail generator.
+     */
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    /**
+     * Photo cache.
+     */
+    private final PhotoCache photoCache;
+
     /**
      * Constructor to inject dependencies.
      *
-     * @param productRepository  is the product repository.
-     * @param userService        is the user service.
-     * @param cartItemRepository is the cart item repository.
+     * @param productRepository      is the product repository.
+     * @param userService            is the user service.
+     * @param cartService            is the cart service.
+     * @param cartItemRepository     is the cart item repository.
+     * @param productCache           is the product cache.
+     * @param catalogVersions        is the catalog versions.
+     * @param categoryCatalog        is the category catalog.
+     * @param productCounters        is the product counters.
+     * @param categoryFacets         is the category facets.
+     * @param productPhotoRepository is the products' photos repository.
+     * @param photoReferences        is the photo references.
+     * @param photoStorage           is the photo storage.
+     * @param thumbnailGenerator     is the thumbnail generator.
+     * @param photoCache             is the photo cache.
      */
-    public ProductServiceImpl(ProductRepository productRepository, UserService userService, CartItemRepository cartItemRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, UserService userService, CartService cartService, CartItemRepository cartItemRepository, ProductCache productCache, CatalogVersions catalogVersions, CategoryCatalog categoryCatalog, ProductCounters productCounters, CategoryFacets categoryFacets, ProductPhotoRepository productPhotoRepository, PhotoReferences photoReferences, PhotoStorage photoStorage, ThumbnailGenerator thumbnailGenerator, PhotoCache photoCache) {
         this.productRepository = productRepository;
         this.userService = userService;
+        this.cartService = cartService;
         this.cartItemRepository = cartItemRepository;
+        this.productCache = productCache;
+        this.catalogVersions = catalogVersions;
+        this.categoryCatalog = categoryCatalog;
+        this.productCounters = productCounters;
+        this.categoryFacets = categoryFacets;
+        this.productPhotoRepository = productPhotoRepository;
+        this.photoReferences = photoReferences;
+        this.photoStorage = photoStorage;
+        this.thumbnailGenerator = thumbnailGenerator;
+        this.photoCache = photoCache;
     }
 
     /**
@@ -101,14 +211,102 @@ public class ProductServiceImpl implements ProductService {
         }
     }
 
+    /**
+     * Returns the product's DTO, served from the product cache when possible.
+     *
+     * @param id is the product's id.
+     * @return <code>ProductDTO</code>
+     */
+    @Override
+    public ProductDTO getProductDTO(Long id) {
+        return productCache.get(id, productId -> this.toProductDTO(productRepository.findWithCategoriesById(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product couldn't be found!"))));
+    }
+
+    /**
+     * Returns the DTOs of the found products by their ids.
+     * Cached products are served from the cache, the rest is read with a single IN query.
+     *
+     * @param ids is the products' ids.
+     * @return found products by id, in the order of the passed ids.
+     */
+    @Override
+    public Map<Long, ProductDTO> getProductDTOs(List<Long> ids) {
+        Map<Long, ProductDTO> products = new LinkedHashMap<>();
+        List<Long> idsToLoad = new ArrayList<>();
+
+        for (Long id : ids) {
+            if (id != null && !products.containsKey(id)) {
+                ProductDTO cached = productCache.getIfPresent(id);
+                products.put(id, cached);
+
+                if (cached == null) {
+                    idsToLoad.add(id);
+                }
+            }
+        }
+
+        if (!idsToLoad.isEmpty()) {
+            for (Product product : productRepository.findAllWithCategoriesByIdIn(idsToLoad)) {
+                ProductDTO productDTO = this.toProductDTO(product);
+                productCache.put(productDTO);
+                products.put(product.getId(), productDTO);
+            }
+        }
+
+        products.values().removeIf(Objects::isNull);
+
+        return products;
+    }
+
     /**
      * Returns all the products.
      *
-     * @return <code>Page of Products</code>
+     * @param pageable  is the page object.
+     * @param totalMode is how the total is computed, the counters aren't kept per filter so filtered listings count exactly.
+     * @param filter    is the products' filter.
+     * @param fields    are the requested fields.
+     *
+     * @return <code>Page of ProductSummaries</code>, or a <code>Slice</code> without totals for {@link TotalMode#NONE}.
      */
     @Override
-    public Page<Product> getAllProducts(Pageable pageable) {
-        return productRepository.findAll(pageable);
+    public Slice<ProductSummary> getAllProducts(Pageable pageable, TotalMode totalMode, ProductFilter filter, SparseFields fields) {
+        boolean approx = totalMode == TotalMode.APPROX && filter.isEmpty();
+        boolean count = totalMode == TotalMode.EXACT || (totalMode == TotalMode.APPROX && !approx);
+        Slice<ProductSummary> slice = productRepository.findSummaries(null, filter, fields, pageable, count);
+
+        if (approx) {
+            slice = withTotal(slice, productCounters.getTotal());
+        }
+
+        this.loadCategories(slice.getContent(), fields);
+
+        return slice;
+    }
+
+    /**
+     * Returns the products that follow the cursor.
+     *
+     * @param cursor is the position to read after.
+     * @param size   is the page size.
+     * @param filter is the products' filter.
+     * @param fields are the requested fields.
+     *
+     * @return <code>Slice of ProductSummaries</code>
+     */
+    @Override
+    public Slice<ProductSummary> getProductsAfter(ProductCursor cursor, int size, ProductFilter filter, SparseFields fields) {
+        return this.readAfter(null, filter, cursor, size, fields);
+    }
+
+    /**
+     * Returns the number of products in every category.
+     *
+     * @return <code>List of CategoryFacetDTOs</code>
+     */
+    @Override
+    public List<CategoryFacetDTO> getCategoryFacets() {
+        return categoryFacets.getFacets();
     }
 
     /**
@@ -119,6 +317,8 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public void save(Product product) {
         productRepository.save(product);
+        productCache.invalidate(product.getId());
+        catalogVersions.productsChanged();
     }
 
     /**
@@ -130,23 +330,57 @@ public class ProductServiceImpl implements ProductService {
     public void delete(Long id) {
         Product product = this.getProduct(id);
 
+        String photoHash = productPhotoRepository.findPhotoHash(product.getId()).orElse(null);
+
+        productPhotoRepository.deleteByProductId(product.getId());
         productRepository.deleteById(product.getId());
+        photoReferences.release(photoHash);
+        productCache.invalidate(id);
+        productCounters.productDeleted(product.getUser().getId());
+        catalogVersions.productsChanged();
     }
 
     /**
      * Returns seller's products.
      *
-     * @param username is the seller's username.
-     * @param pageable is the page details.
+     * @param username  is the seller's username.
+     * @param pageable  is the page details.
+     * @param totalMode is how the total is computed.
+     * @param fields    are the requested fields.
      *
-     * @return Page of Products.
+     * @return Page of ProductSummaries, or a Slice without totals for {@link TotalMode#NONE}.
      */
     @Override
-    public Page<Product> getSellerProducts(String username, Pageable pageable) {
+    public Slice<ProductSummary> getSellerProducts(String username, Pageable pageable, TotalMode totalMode, SparseFields fields) {
         User user = userService.getByUsername(username);
 
         Long userId = user.getId();
-        return productRepository.getProductsBySellerId(userId, pageable);
+        Slice<ProductSummary> slice = productRepository.findSummaries(userId, ProductFilter.NONE, fields, pageable, totalMode == TotalMode.EXACT);
+
+        if (totalMode == TotalMode.APPROX) {
+            slice = withTotal(slice, productCounters.getSellerTotal(userId));
+        }
+
+        this.loadCategories(slice.getContent(), fields);
+
+        return slice;
+    }
+
+    /**
+     * Returns seller's products that follow the cursor.
+     *
+     * @param username is the seller's username.
+     * @param cursor   is the position to read after.
+     * @param size     is the page size.
+     * @param fields   are the requested fields.
+     *
+     * @return Slice of ProductSummaries.
+     */
+    @Override
+    public Slice<ProductSummary> getSellerProductsAfter(String username, ProductCursor cursor, int size, SparseFields fields) {
+        User user = userService.getByUsername(username);
+
+        return this.readAfter(user.getId(), ProductFilter.NONE, cursor, size, fields);
     }
 
     /**
@@ -159,10 +393,8 @@ public class ProductServiceImpl implements ProductService {
     public void addProductToCart(final Long id, final Integer quantity) {
         Product product = this.getProduct(id);
 
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        User user = userService.getByUsername(userDetails.getUsername());
-
-        Cart cart = user.getCart();
+        Long cartId = this.getCurrentUser().getCartId();
+        Cart cart = cartId != null ? cartService.getReference(cartId) : null;
 
         CartItem cartItem = new CartItem();
         cartItem.setCart(cart);
@@ -186,11 +418,12 @@ public class ProductServiceImpl implements ProductService {
     public Long addProduct(ProductDTO productDTO) {
         Product product = RequestBodyToEntityConverter.convertToProduct(productDTO);
 
-        UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-
-        User user = userService.getByUsername(userDetails.getUsername());
-        product.setUser(user);
+        Long userId = this.getCurrentUser().getId();
+        product.setUser(userService.getReferenceById(userId));
         productRepository.save(product);
+        productCache.put(this.toProductDTO(product));
+        productCounters.productAdded(userId);
+        catalogVersions.productsChanged();
 
         return product.getId();
     }
@@ -203,48 +436,177 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     public void updatePhoto(Long id, MultipartFile photo) {
-        Product product = this.getProduct(id);
+        try (InputStream content = photo.getInputStream()) {
+            this.updatePhoto(id, content, photo.getSize());
+        } catch (IOException e) {
+            throw new CouldntUploadPhotoException("product_photo_not_uploaded");
+        }
+    }
 
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String username = auth.getName();
-        User user = userService.getByUsername(username);
+    /**
+     * Updates product photo from a stream, it's checked and hashed while it's stored.
+     *
+     * @param id      is the product's id.
+     * @param content is the photo's content.
+     * @param length  is the declared length of the content or <code>-1</code> if it's unknown.
+     */
+    @Override
+    public void updatePhoto(Long id, InputStream content, long length) {
+        Product product = this.getProduct(id);
 
-        if (!product.getUser().getUsername().equals(user.getUsername())) {
+        if (!product.getUser().getId().equals(this.getCurrentUser().getId())) {
             throw new AccessDeniedException("access_denied");
         }
 
+        String hash;
+
         try {
-            product.setPhoto(photo.getBytes());
+            hash = photoStorage.upload(content, length);
         } catch (IOException e) {
             throw new CouldntUploadPhotoException("product_photo_not_uploaded");
         }
 
-        productRepository.save(product);
+        ProductPhoto photo = productPhotoRepository.findById(id).orElseGet(() -> new ProductPhoto(id, null));
+        String previousHash = photo.getPhotoHash();
+        photo.setPhotoHash(hash);
+
+        productPhotoRepository.save(photo);
+        photoReferences.replace(previousHash, hash);
+        thumbnailGenerator.submit(hash);
+    }
+
+    /**
+     * Returns product's photo.
+     *
+     * @param id   is the product's id.
+     * @param size is the requested thumbnail size or <code>null</code> for the original.
+     * @return <code>StoredPhoto</code> or <code>null</code> if the product has no photo.
+     */
+    @Override
+    public StoredPhoto getPhoto(Long id, Integer size) {
+        String hash = productPhotoRepository.findPhotoHash(id).orElse(null);
+
+        if (hash == null) {
+            // Tells a product without a photo from a missing product.
+            this.getProduct(id);
+
+            return null;
+        }
+
+        return photoCache.get(hash, size, () -> photoStorage.load(hash, size));
     }
 
     /**
      * Updates product.
      *
-     * @param id         is the product's id.
-     * @param productDTO is the product DTO.
+     * @param id              is the product's id.
+     * @param productDTO      is the product DTO.
+     * @param expectedVersion is the product's version the client has seen, <code>null</code> to skip the check.
+     * @throws PreconditionFailedException if the product was modified since the expected version.
      */
     @Override
-    public void updateProduct(Long id, ProductDTO productDTO) {
+    public void updateProduct(Long id, ProductDTO productDTO, Long expectedVersion) {
         Product product = this.getProduct(id);
 
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        String currentUserUsername = auth.getName();
-        String productSellerUsername = product.getUser().getUsername();
-
-        if (!currentUserUsername.equals(productSellerUsername)) {
+        if (!product.getUser().getId().equals(this.getCurrentUser().getId())) {
             throw new AccessDeniedException("access_denied");
         }
 
+        if (expectedVersion != null && product.getVersion() != expectedVersion) {
+            throw new PreconditionFailedException("product_modified");
+        }
+
         product.setName(productDTO.getName());
         product.setCategories(productDTO.getCategories());
         product.setPrice(productDTO.getPrice());
         product.setDescription(productDTO.getDescription());
 
-        productRepository.save(product);
+        // A concurrent update between the read and the save fails the version check with a conflict.
+        Product updatedProduct = productRepository.save(product);
+        productCache.put(this.toProductDTO(updatedProduct));
+        catalogVersions.productsChanged();
+    }
+
+    /**
+     * Returns the current user's principal. A JWT token's principal already carries the user's ids,
+     * other authentications (e.g. HTTP Basic) are resolved by username.
+     *
+     * @return <code>AuthenticatedUser</code>
+     */
+    private AuthenticatedUser getCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+
+        if (auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+
+        return AuthenticatedUser.of(userService.getByUsername(auth.getName()));
+    }
+
+    /**
+     * Reads one keyset page. One extra row is fetched to know if there is a next page without counting.
+     *
+     * @param sellerId is the seller's id or <code>null</code> for all the products.
+     * @param filter   is the products' filter.
+     * @param cursor   is the position to read after.
+     * @param size     is the page size.
+     * @param fields   are the requested fields.
+     * @return Slice of ProductSummaries.
+     */
+    private Slice<ProductSummary> readAfter(Long sellerId, ProductFilter filter, ProductCursor cursor, int size, SparseFields fields) {
+        List<ProductSummary> summaries = productRepository.findSummariesAfter(sellerId, filter, cursor, size + 1, fields);
+
+        boolean hasNext = summaries.size() > size;
+        List<ProductSummary> content = hasNext ? summaries.subList(0, size) : summaries;
+        this.loadCategories(content, fields);
+
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Turns a slice into a page with the passed total.
+     *
+     * @param slice is the slice.
+     * @param total is the total number of items.
+     * @return <code>Page of ProductSummaries</code>
+     */
+    private static Page<ProductSummary> withTotal(Slice<ProductSummary> slice, long total) {
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), total);
+    }
+
+    /**
+     * Loads the categories of the passed summaries with a single query, the categories are taken from the catalog.
+     *
+     * @param summaries is the list of product summaries.
+     * @param fields    are the requested fields, nothing is loaded if the categories aren't requested.
+     */
+    private void loadCategories(List<ProductSummary> summaries, SparseFields fields) {
+        if (summaries.isEmpty() || !fields.includes("categories")) {
+            return;
+        }
+
+        Map<Long, ProductSummary> summariesById = summaries.stream()
+                .collect(Collectors.toMap(ProductSummary::getId, Function.identity()));
+
+        for (ProductCategoryLink link : productRepository.findCategoryLinks(summariesById.keySet())) {
+            Category category = categoryCatalog.getCategory(link.getCategoryId());
+
+            if (category != null) {
+                summariesById.get(link.getProductId()).getCategories().add(category);
+            }
+        }
+    }
+
+    /**
+     * Converts a product to DTO with the categories taken from the catalog.
+     *
+     * @param product is the product.
+     * @return <code>ProductDTO</code>
+     */
+    private ProductDTO toProductDTO(Product product) {
+        ProductDTO productDTO = RequestBodyToEntityConverter.convertToProductDTO(product);
+        productDTO.setCategories(categoryCatalog.resolve(productDTO.getCategories()));
+
+        return productDTO;
     }
 }
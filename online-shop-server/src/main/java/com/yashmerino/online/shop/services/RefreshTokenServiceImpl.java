@@ -0,0 +1,181 @@
+package com.yashmerino.online.shop.services;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.InvalidRefreshTokenException;
+import com.yashmerino.online.shop.model.RefreshToken;
+import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.repositories.RefreshTokenRepository;
+import com.yashmerino.online.shop.services.interfaces.RefreshTokenService;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Implementation for {@link RefreshTokenService}
+ */
+@Service
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    /**
+     * Number of random bytes in a refresh token.
+     */
+    private static final int TOKEN_BYTES = 32;
+
+    /**
+     * Source of the refresh tokens.
+     */
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Refresh tokens' repository.
+     */
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    /**
+     * Time a refresh token is valid for.
+     */
+    private final Duration ttl;
+
+    /**
+     * Constructor.
+     *
+     * @param refreshTokenRepository is the refresh tokens' repository.
+     * @param applicationProperties  is the application's properties.
+     */
+    public RefreshTokenServiceImpl(RefreshTokenRepository refreshTokenRepository, ApplicationProperties applicationProperties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = applicationProperties.jwtRefreshTtl;
+    }
+
+    /**
+     * Issues a refresh token that starts a new family.
+     *
+     * @param user is the token's user.
+     * @return the refresh token.
+     */
+    @Override
+    public String issue(User user) {
+        return this.issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Issues a refresh token of an existing family.
+     *
+     * @param user   is the token's user.
+     * @param family is the token's family.
+     * @return the refresh token.
+     */
+    @Override
+    public String issue(User user, String family) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(user);
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setFamily(family);
+        refreshToken.setExpiresAt(Instant.now().plus(ttl));
+        refreshTokenRepository.save(refreshToken);
+
+        return token;
+    }
+
+    /**
+     * Uses a refresh token, it can't be used again afterwards.
+     * If the token was already used, its whole family is revoked.
+     *
+     * @param token is the refresh token.
+     * @return the used <code>RefreshToken</code>.
+     */
+    @Override
+    public RefreshToken use(String token) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new InvalidRefreshTokenException("invalid_refresh_token"));
+
+        if (refreshToken.getExpiresAt().isBefore(Instant.now())) {
+            throw new InvalidRefreshTokenException("invalid_refresh_token");
+        }
+
+        // Losing the update means the token was used before, by whoever holds a copy of it.
+        if (refreshTokenRepository.markUsed(refreshToken.getId()) == 0) {
+            refreshTokenRepository.revokeFamily(refreshToken.getFamily());
+            log.warn("Refresh token family {} was revoked because one of its tokens was reused.", refreshToken.getFamily());
+
+            throw new InvalidRefreshTokenException("refresh_token_reused");
+        }
+
+        return refreshToken;
+    }
+
+    /**
+     * Revokes all the refresh tokens of a user.
+     *
+     * @param userId is the user's id.
+     */
+    @Override
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeByUserId(userId);
+    }
+
+    /**
+     * Deletes the expired refresh tokens.
+     */
+    @Scheduled(initialDelayString = "${jwt.refresh.sweep-interval:PT1H}", fixedDelayString = "${jwt.refresh.sweep-interval:PT1H}")
+    public void deleteExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+
+        log.debug("Deleted {} expired refresh tokens.", deleted);
+    }
+
+    /**
+     * Hashes a refresh token.
+     *
+     * @param token is the refresh token.
+     * @return SHA-256 hash of the token.
+     */
+    private static String hash(final String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't supported", e);
+        }
+    }
+}
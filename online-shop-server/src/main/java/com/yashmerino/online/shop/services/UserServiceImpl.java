@@ -24,13 +24,29 @@ package com.yashmerino.online.shop.services;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.cache.PhotoCache;
+import com.yashmerino.online.shop.cache.RoleCatalog;
+import com.yashmerino.online.shop.cache.UsernameFilter;
+import com.yashmerino.online.shop.exceptions.InvalidInputException;
+import com.yashmerino.online.shop.exceptions.UsernameAlreadyTakenException;
 import com.yashmerino.online.shop.exceptions.CouldntUploadPhotoException;
+import com.yashmerino.online.shop.model.Cart;
 import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.model.UserPhoto;
+import com.yashmerino.online.shop.model.dto.ImportResultDTO;
 import com.yashmerino.online.shop.model.dto.auth.UserDTO;
+import com.yashmerino.online.shop.model.dto.auth.UserImportDTO;
 import com.yashmerino.online.shop.model.dto.auth.UserInfoDTO;
 import com.yashmerino.online.shop.repositories.UserRepository;
+import com.yashmerino.online.shop.repositories.UserPhotoRepository;
 import com.yashmerino.online.shop.services.interfaces.UserService;
+import com.yashmerino.online.shop.storage.PhotoReferences;
+import com.yashmerino.online.shop.storage.PhotoStorage;
+import com.yashmerino.online.shop.storage.StoredPhoto;
+import com.yashmerino.online.shop.storage.ThumbnailGenerator;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -38,7 +54,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementation for user service.
@@ -46,18 +67,79 @@ import java.util.Optional;
 @Service
 public class UserServiceImpl implements UserService {
 
+    /**
+     * Number of usernames checked with one query on import.
+     */
+    private static final int IMPORT_LOOKUP_SIZE = 1000;
+
     /**
      * User repository.
      */
     private final UserRepository userRepository;
 
+    /**
+     * Users' photos repository.
+     */
+    private final UserPhotoRepository userPhotoRepository;
+
+    /**
+     * Photo references.
+     */
+    private final PhotoReferences photoReferences;
+
+    /**
+     * Photo storage.
+     */
+    private final PhotoStorage photoStorage;
+
+    /**
+     * Thumbnail generator.
+     */
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    /**
+     * Photo cache.
+     */
+    private final PhotoCache photoCache;
+
+    /**
+     * Role catalog.
+     */
+    private final RoleCatalog roleCatalog;
+
+    /**
+     * Filter of the taken usernames.
+     */
+    private final UsernameFilter usernameFilter;
+
+    /**
+     * Application's properties.
+     */
+    private final ApplicationProperties applicationProperties;
+
     /**
      * Constructor to inject dependencies.
      *
-     * @param userRepository is the user repository.
+     * @param userRepository        is the user repository.
+     * @param userPhotoRepository   is the users' photos repository.
+     * @param photoReferences       is the photo references.
+     * @param photoStorage          is the photo storage.
+     * @param thumbnailGenerator    is the thumbnail generator.
+     * @param photoCache            is the photo cache.
+     * @param roleCatalog           is the role catalog.
+     * @param usernameFilter        is the filter of the taken usernames.
+     * @param applicationProperties is the application's properties.
      */
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, UserPhotoRepository userPhotoRepository, PhotoReferences photoReferences, PhotoStorage photoStorage, ThumbnailGenerator thumbnailGenerator, PhotoCache photoCache, RoleCatalog roleCatalog, UsernameFilter usernameFilter, ApplicationProperties applicationProperties) {
         this.userRepository = userRepository;
+        this.userPhotoRepository = userPhotoRepository;
+        this.photoReferences = photoReferences;
+        this.photoStorage = photoStorage;
+        this.thumbnailGenerator = thumbnailGenerator;
+        this.photoCache = photoCache;
+        this.roleCatalog = roleCatalog;
+        this.usernameFilter = usernameFilter;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -77,6 +159,17 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    /**
+     * Returns a reference to a user without loading it.
+     *
+     * @param id is the user's id.
+     * @return <code>User</code>
+     */
+    @Override
+    public User getReferenceById(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
     /**
      * Returns user by username.
      *
@@ -120,6 +213,22 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public void updatePhoto(String username, MultipartFile photo) {
+        try (InputStream content = photo.getInputStream()) {
+            this.updatePhoto(username, content, photo.getSize());
+        } catch (IOException e) {
+            throw new CouldntUploadPhotoException("user_photo_not_uploaded");
+        }
+    }
+
+    /**
+     * Updates user photo from a stream, it's checked and hashed while it's stored.
+     *
+     * @param username is the user's username.
+     * @param content  is the photo's content.
+     * @param length   is the declared length of the content or <code>-1</code> if it's unknown.
+     */
+    @Override
+    public void updatePhoto(String username, InputStream content, long length) {
         User user = this.getByUsername(username);
 
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -129,13 +238,42 @@ public class UserServiceImpl implements UserService {
             throw new AccessDeniedException("access_denied");
         }
 
+        String hash;
+
         try {
-            user.setPhoto(photo.getBytes());
+            hash = photoStorage.upload(content, length);
         } catch (IOException e) {
             throw new CouldntUploadPhotoException("user_photo_not_uploaded");
         }
 
-        userRepository.save(user);
+        UserPhoto photo = userPhotoRepository.findById(user.getId()).orElseGet(() -> new UserPhoto(user.getId(), null));
+        String previousHash = photo.getPhotoHash();
+        photo.setPhotoHash(hash);
+
+        userPhotoRepository.save(photo);
+        photoReferences.replace(previousHash, hash);
+        thumbnailGenerator.submit(hash);
+    }
+
+    /**
+     * Returns user's photo.
+     *
+     * @param username is the user's username.
+     * @param size     is the requested thumbnail size or <code>null</code> for the original.
+     * @return <code>StoredPhoto</code> or <code>null</code> if the user has no photo.
+     */
+    @Override
+    public StoredPhoto getPhoto(String username, Integer size) {
+        String hash = userPhotoRepository.findPhotoHashByUsername(username).orElse(null);
+
+        if (hash == null) {
+            // Tells a user without a photo from a missing user.
+            this.getByUsername(username);
+
+            return null;
+        }
+
+        return photoCache.get(hash, size, () -> photoStorage.load(hash, size));
     }
 
     /**
@@ -158,4 +296,67 @@ public class UserServiceImpl implements UserService {
         user.setEmail(userDTO.getEmail());
         userRepository.save(user);
     }
+
+    /**
+     * Imports users with their BCrypt password hashes. The usernames that are taken or repeated are skipped.
+     * Every user gets a cart, they are inserted in one transaction with JDBC batches.
+     *
+     * @param users is the users to import.
+     * @return the number of imported and skipped users.
+     */
+    @Override
+    public ImportResultDTO importUsers(List<UserImportDTO> users) {
+        if (users.size() > applicationProperties.userImportMaxSize) {
+            throw new InvalidInputException("import_too_large");
+        }
+
+        // Usernames are compared normalized, the usernames that differ only by case are the same username.
+        Set<String> usernames = new HashSet<>();
+        List<String> chunk = new ArrayList<>();
+        Set<String> takenUsernames = new HashSet<>();
+
+        for (UserImportDTO user : users) {
+            // Only the usernames the filter might contain are checked in the database.
+            if (usernames.add(UsernameFilter.normalize(user.getUsername())) && usernameFilter.mightContain(user.getUsername())) {
+                chunk.add(user.getUsername());
+            }
+
+            if (chunk.size() == IMPORT_LOOKUP_SIZE) {
+                userRepository.findExistingUsernames(chunk).forEach(username -> takenUsernames.add(UsernameFilter.normalize(username)));
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            userRepository.findExistingUsernames(chunk).forEach(username -> takenUsernames.add(UsernameFilter.normalize(username)));
+        }
+
+        List<User> newUsers = new ArrayList<>();
+
+        for (UserImportDTO userImportDTO : users) {
+            if (takenUsernames.add(UsernameFilter.normalize(userImportDTO.getUsername()))) {
+                User user = new User();
+                user.setUsername(userImportDTO.getUsername());
+                user.setEmail(userImportDTO.getEmail());
+                user.setPassword(userImportDTO.getPasswordHash());
+                user.setRoles(new HashSet<>(List.of(roleCatalog.getRole(userImportDTO.getRole()))));
+
+                Cart cart = new Cart();
+                cart.setUser(user);
+                user.setCart(cart);
+
+                newUsers.add(user);
+            }
+        }
+
+        try {
+            userRepository.insertInBatches(newUsers, applicationProperties.userImportBatchSize);
+        } catch (DataIntegrityViolationException e) {
+            throw new UsernameAlreadyTakenException("username_taken");
+        }
+
+        newUsers.forEach(user -> usernameFilter.put(user.getUsername()));
+
+        return new ImportResultDTO(newUsers.size(), users.size() - newUsers.size());
+    }
 }
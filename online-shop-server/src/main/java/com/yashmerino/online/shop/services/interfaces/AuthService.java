@@ -23,7 +23,9 @@ package com.yashmerino.online.shop.services.interfaces;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.model.dto.auth.AuthResponseDTO;
 import com.yashmerino.online.shop.model.dto.auth.LoginDTO;
+import com.yashmerino.online.shop.model.dto.auth.RefreshTokenDTO;
 import com.yashmerino.online.shop.model.dto.auth.RegisterDTO;
 
 /**
@@ -38,11 +40,32 @@ public interface AuthService {
      */
     void register(final RegisterDTO registerDTO);
 
+    /**
+     * Checks if a username is free.
+     *
+     * @param username is the username.
+     * @return <code>true</code> if the username is free.
+     */
+    boolean isUsernameAvailable(final String username);
+
     /**
      * Logins the user.
      *
      * @param loginDTO is the login DTO.
-     * @return JWT Token.
+     * @return JWT Token and refresh token.
+     */
+    AuthResponseDTO login(final LoginDTO loginDTO);
+
+    /**
+     * Exchanges a refresh token for a new JWT Token and a new refresh token, without checking the password.
+     *
+     * @param refreshTokenDTO is the refresh token DTO.
+     * @return JWT Token and refresh token.
+     */
+    AuthResponseDTO refresh(final RefreshTokenDTO refreshTokenDTO);
+
+    /**
+     * Logouts the current user, revoking all the user's JWT and refresh tokens.
      */
-    String login(final LoginDTO loginDTO);
+    void logout();
 }
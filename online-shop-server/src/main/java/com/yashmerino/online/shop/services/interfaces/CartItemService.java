@@ -24,9 +24,12 @@ package com.yashmerino.online.shop.services.interfaces;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.fields.SparseFields;
 import com.yashmerino.online.shop.model.CartItem;
-import org.springframework.data.domain.Page;
+import com.yashmerino.online.shop.model.projections.CartItemSummary;
+import com.yashmerino.online.shop.utils.TotalMode;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Interface for cart item service.
@@ -59,12 +62,14 @@ public interface CartItemService {
     /**
      * Returns all the cart items.
      *
-     * @param username is the user's username.
-     * @param pageable is the page object.
+     * @param username  is the user's username.
+     * @param pageable  is the page object.
+     * @param totalMode is how the total is computed.
+     * @param fields    are the requested fields.
      *
-     * @return <code>List of CartItem</code>
+     * @return <code>Page of CartItemSummary</code>, or a <code>Slice</code> without totals for {@link TotalMode#NONE}.
      */
-     Page<CartItem> getCartItems(String username, Pageable pageable);
+     Slice<CartItemSummary> getCartItems(String username, Pageable pageable, TotalMode totalMode, SparseFields fields);
 
     /**
      * Calculates the total cart price.
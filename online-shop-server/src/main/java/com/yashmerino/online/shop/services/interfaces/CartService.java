@@ -40,6 +40,14 @@ public interface CartService {
      */
     Optional<Cart> getCart(final Long id);
 
+    /**
+     * Returns a reference to a cart without loading it.
+     *
+     * @param id is the cart's id.
+     * @return <code>Cart</code>
+     */
+    Cart getReference(final Long id);
+
     /**
      * Saves a cart.
      *
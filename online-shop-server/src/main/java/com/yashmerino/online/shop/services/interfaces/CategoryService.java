@@ -39,4 +39,16 @@ public interface CategoryService {
      * @return a list of categories.
      */
     List<Category> getCategories();
+
+    /**
+     * Returns the JSON of the categories list.
+     *
+     * @return the JSON as UTF-8 bytes.
+     */
+    byte[] getCategoriesJson();
+
+    /**
+     * Reloads the categories after they were changed in the database.
+     */
+    void refreshCategories();
 }
@@ -24,13 +24,22 @@ package com.yashmerino.online.shop.services.interfaces;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.fields.SparseFields;
 import com.yashmerino.online.shop.model.Product;
+import com.yashmerino.online.shop.model.dto.CategoryFacetDTO;
 import com.yashmerino.online.shop.model.dto.ProductDTO;
-import org.springframework.data.domain.Page;
+import com.yashmerino.online.shop.model.projections.ProductSummary;
+import com.yashmerino.online.shop.storage.StoredPhoto;
+import com.yashmerino.online.shop.utils.ProductCursor;
+import com.yashmerino.online.shop.utils.ProductFilter;
+import com.yashmerino.online.shop.utils.TotalMode;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for product service.
@@ -45,14 +54,52 @@ public interface ProductService {
      */
     Product getProduct(final Long id);
 
+    /**
+     * Returns the product's DTO, served from the product cache when possible.
+     *
+     * @param id is the product's id.
+     * @return <code>ProductDTO</code>
+     */
+    ProductDTO getProductDTO(final Long id);
+
+    /**
+     * Returns the DTOs of the found products by their ids.
+     *
+     * @param ids is the products' ids.
+     * @return found products by id, in the order of the passed ids.
+     */
+    Map<Long, ProductDTO> getProductDTOs(List<Long> ids);
+
     /**
      * Returns all the products.
      *
-     * @param pageable is the page object.
+     * @param pageable  is the page object.
+     * @param totalMode is how the total is computed.
+     * @param filter    is the products' filter.
+     * @param fields    are the requested fields.
+     *
+     * @return <code>Page of ProductSummaries</code>, or a <code>Slice</code> without totals for {@link TotalMode#NONE}.
+     */
+    Slice<ProductSummary> getAllProducts(Pageable pageable, TotalMode totalMode, ProductFilter filter, SparseFields fields);
+
+    /**
+     * Returns the products that follow the cursor.
+     *
+     * @param cursor is the position to read after.
+     * @param size   is the page size.
+     * @param filter is the products' filter.
+     * @param fields are the requested fields.
+     *
+     * @return <code>Slice of ProductSummaries</code>
+     */
+    Slice<ProductSummary> getProductsAfter(ProductCursor cursor, int size, ProductFilter filter, SparseFields fields);
+
+    /**
+     * Returns the number of products in every category.
      *
-     * @return <code>Page of Products</code>
+     * @return <code>List of CategoryFacetDTOs</code>
      */
-    Page<Product> getAllProducts(Pageable pageable);
+    List<CategoryFacetDTO> getCategoryFacets();
 
     /**
      * Saves a product.
@@ -71,12 +118,26 @@ public interface ProductService {
     /**
      * Returns seller's products.
      *
+     * @param username  is the seller's username.
+     * @param pageable  is the page details.
+     * @param totalMode is how the total is computed.
+     * @param fields    are the requested fields.
+     *
+     * @return Page of ProductSummaries, or a Slice without totals for {@link TotalMode#NONE}.
+     */
+    Slice<ProductSummary> getSellerProducts(String username, Pageable pageable, TotalMode totalMode, SparseFields fields);
+
+    /**
+     * Returns seller's products that follow the cursor.
+     *
      * @param username is the seller's username.
-     * @param pageable is the page details.
+     * @param cursor   is the position to read after.
+     * @param size     is the page size.
+     * @param fields   are the requested fields.
      *
-     * @return Page of Products.
+     * @return Slice of ProductSummaries.
      */
-    Page<Product> getSellerProducts(String username, Pageable pageable);
+    Slice<ProductSummary> getSellerProductsAfter(String username, ProductCursor cursor, int size, SparseFields fields);
 
     /**
      * Add product to the cart.
@@ -102,11 +163,30 @@ public interface ProductService {
      */
     void updatePhoto(Long id, MultipartFile photo);
 
+    /**
+     * Updates product photo from a stream, it's checked and hashed while it's stored.
+     *
+     * @param id      is the product's id.
+     * @param content is the photo's content.
+     * @param length  is the declared length of the content or <code>-1</code> if it's unknown.
+     */
+    void updatePhoto(Long id, InputStream content, long length);
+
+    /**
+     * Returns product's photo.
+     *
+     * @param id   is the product's id.
+     * @param size is the requested thumbnail size or <code>null</code> for the original.
+     * @return <code>StoredPhoto</code> or <code>null</code> if the product has no photo.
+     */
+    StoredPhoto getPhoto(Long id, Integer size);
+
     /**
      * Updates product.
      *
-     * @param id         is the product's id.
-     * @param productDTO is the product DTO.
+     * @param id              is the product's id.
+     * @param productDTO      is the product DTO.
+     * @param expectedVersion is the product's version the client has seen, <code>null</code> to skip the check.
      */
-    void updateProduct(Long id, ProductDTO productDTO);
+    void updateProduct(Long id, ProductDTO productDTO, Long expectedVersion);
 }
@@ -0,0 +1,67 @@
+package com.yashmerino.online.shop.services.interfaces;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.model.RefreshToken;
+import com.yashmerino.online.shop.model.User;
+
+/**
+ * Interface for refresh token service.
+ */
+public interface RefreshTokenService {
+
+    /**
+     * Issues a refresh token that starts a new family.
+     *
+     * @param user is the token's user.
+     * @return the refresh token.
+     */
+    String issue(final User user);
+
+    /**
+     * Issues a refresh token of an existing family.
+     *
+     * @param user   is the token's user.
+     * @param family is the token's family.
+     * @return the refresh token.
+     */
+    String issue(final User user, final String family);
+
+    /**
+     * Uses a refresh token, it can't be used again afterwards.
+     * If the token was already used, its whole family is revoked.
+     *
+     * @param token is the refresh token.
+     * @return the used <code>RefreshToken</code>.
+     */
+    RefreshToken use(final String token);
+
+    /**
+     * Revokes all the refresh tokens of a user.
+     *
+     * @param userId is the user's id.
+     */
+    void revokeAll(final Long userId);
+}
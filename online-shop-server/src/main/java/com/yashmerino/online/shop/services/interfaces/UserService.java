@@ -25,10 +25,17 @@ package com.yashmerino.online.shop.services.interfaces;
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
 import com.yashmerino.online.shop.model.User;
+import com.yashmerino.online.shop.model.dto.ImportResultDTO;
 import com.yashmerino.online.shop.model.dto.auth.UserDTO;
+import com.yashmerino.online.shop.model.dto.auth.UserImportDTO;
 import com.yashmerino.online.shop.model.dto.auth.UserInfoDTO;
+import com.yashmerino.online.shop.storage.StoredPhoto;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+
+import java.util.List;
+
 /**
  * Interface for user service.
  */
@@ -42,6 +49,14 @@ public interface UserService {
      */
     User getById(final Long id);
 
+    /**
+     * Returns a reference to a user without loading it.
+     *
+     * @param id is the user's id.
+     * @return <code>User</code>
+     */
+    User getReferenceById(final Long id);
+
     /**
      * Returns user by username.
      *
@@ -66,6 +81,24 @@ public interface UserService {
      */
     void updatePhoto(String username, MultipartFile photo);
 
+    /**
+     * Update photo for user from a stream, it's checked and hashed while it's stored.
+     *
+     * @param username is the user's username.
+     * @param content  is the photo's content.
+     * @param length   is the declared length of the content or <code>-1</code> if it's unknown.
+     */
+    void updatePhoto(String username, InputStream content, long length);
+
+    /**
+     * Returns user's photo.
+     *
+     * @param username is the user's username.
+     * @param size     is the requested thumbnail size or <code>null</code> for the original.
+     * @return <code>StoredPhoto</code> or <code>null</code> if the user has no photo.
+     */
+    StoredPhoto getPhoto(String username, Integer size);
+
     /**
      * Updates user information.
      *
@@ -73,4 +106,12 @@ public interface UserService {
      * @param userDTO  is the user's updated information.
      */
     void updateUser(String username, UserDTO userDTO);
+
+    /**
+     * Imports users with their BCrypt password hashes. The usernames that are taken or repeated are skipped.
+     *
+     * @param users is the users to import.
+     * @return the number of imported and skipped users.
+     */
+    ImportResultDTO importUsers(List<UserImportDTO> users);
 }
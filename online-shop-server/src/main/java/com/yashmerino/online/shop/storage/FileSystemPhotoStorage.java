@@ -0,0 +1,497 @@
+package com.yashmerino.online.shop.storage;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.PhotoTooLargeException;
+import com.yashmerino.online.shop.exceptions.UnsupportedPhotoTypeException;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * {@link PhotoStorage} that keeps the photos on the local disk, under <code>ab/cd/abcd...</code> paths built from their hash.
+ * Thumbnails are kept next to the original as <code>abcd..._256</code>.
+ * Files are written to a temporary file and then moved in place, so a file is either missing or complete.
+ */
+@Component
+public class FileSystemPhotoStorage implements PhotoStorage {
+
+    /**
+     * Format of a valid hash, anything else is rejected before touching the disk.
+     */
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Message used when the photo couldn't be found.
+     */
+    private static final String PHOTO_NOT_FOUND_MESSAGE = "photo_not_found";
+
+    /**
+     * Suffix of the file that marks the thumbnails as generated.
+     */
+    private static final String THUMBNAILS_GENERATED_SUFFIX = "_thumbnails";
+
+    /**
+     * Message used when the uploaded photo isn't a supported image.
+     */
+    private static final String UNSUPPORTED_PHOTO_TYPE_MESSAGE = "unsupported_photo_type";
+
+    /**
+     * Message used when the uploaded photo has too many bytes.
+     */
+    private static final String PHOTO_TOO_LARGE_MESSAGE = "photo_too_large";
+
+    /**
+     * Types accepted for uploads, the ones that can be decoded to check the size and generate thumbnails.
+     */
+    private static final Set<MediaType> UPLOAD_TYPES = Set.of(MediaType.IMAGE_JPEG, MediaType.IMAGE_PNG, MediaType.IMAGE_GIF);
+
+    /**
+     * Size of the buffer used to copy uploads.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Number of bytes buffered before an upload is written, the dimensions of most images are declared in them.
+     */
+    private static final int DIMENSIONS_PREFIX_LENGTH = 64 * 1024;
+
+    /**
+     * Storage's root directory.
+     */
+    private final Path root;
+
+    /**
+     * Maximum number of bytes of an uploaded photo.
+     */
+    private final long maxUploadBytes;
+
+    /**
+     * Maximum number of pixels of an uploaded photo.
+     */
+    private final long maxUploadPixels;
+
+    /**
+     * Constructor.
+     *
+     * @param applicationProperties is the application properties.
+     */
+    public FileSystemPhotoStorage(ApplicationProperties applicationProperties) {
+        this.root = Path.of(applicationProperties.photoStoragePath).toAbsolutePath();
+        this.maxUploadBytes = applicationProperties.photoUploadMaxSize.toBytes();
+        this.maxUploadPixels = applicationProperties.photoUploadMaxPixels;
+    }
+
+    /**
+     * Stores a photo.
+     *
+     * @param content is the photo's content, it isn't closed.
+     * @return the hex encoded SHA-256 hash of the content.
+     * @throws IOException if the photo couldn't be stored.
+     */
+    @Override
+    public String store(InputStream content) throws IOException {
+        Files.createDirectories(root);
+        Path temporary = Files.createTempFile(root, "upload-", ".tmp");
+
+        try {
+            MessageDigest digest = newDigest();
+
+            try (OutputStream output = new DigestOutputStream(Files.newOutputStream(temporary), digest)) {
+                content.transferTo(output);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            moveInPlace(temporary, resolve(hash));
+
+            return hash;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Stores a photo uploaded by a client, checking its type and size while it's streamed.
+     *
+     * @param content is the photo's content, it isn't closed.
+     * @param length  is the declared length of the content or <code>-1</code> if it's unknown.
+     * @return the hex encoded SHA-256 hash of the content.
+     * @throws IOException if the photo couldn't be stored.
+     * @throws UnsupportedPhotoTypeException if the content isn't a supported image.
+     * @throws PhotoTooLargeException if the photo has too many bytes or pixels.
+     */
+    @Override
+    public String upload(InputStream content, long length) throws IOException {
+        if (length > maxUploadBytes) {
+            throw new PhotoTooLargeException(PHOTO_TOO_LARGE_MESSAGE);
+        }
+
+        // The declared content type can't be trusted, the type and the dimensions are read from the first bytes before anything is written.
+        BufferedInputStream input = new BufferedInputStream(content, BUFFER_SIZE);
+        input.mark(DIMENSIONS_PREFIX_LENGTH);
+        byte[] prefix = input.readNBytes(DIMENSIONS_PREFIX_LENGTH);
+        input.reset();
+
+        if (!UPLOAD_TYPES.contains(PhotoMediaTypes.sniff(prefix, Math.min(prefix.length, PhotoMediaTypes.HEADER_LENGTH)))) {
+            throw new UnsupportedPhotoTypeException(UNSUPPORTED_PHOTO_TYPE_MESSAGE);
+        }
+
+        try (ImageInputStream header = ImageIO.createImageInputStream(new ByteArrayInputStream(prefix))) {
+            checkPixels(countPixels(header));
+        }
+
+        Files.createDirectories(root);
+        Path temporary = Files.createTempFile(root, "upload-", ".tmp");
+
+        try {
+            MessageDigest digest = newDigest();
+
+            try (InputStream digesting = new DigestInputStream(input, digest);
+                 OutputStream output = Files.newOutputStream(temporary)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long total = 0;
+                int read;
+
+                while ((read = digesting.read(buffer)) != -1) {
+                    total += read;
+
+                    if (total > maxUploadBytes) {
+                        throw new PhotoTooLargeException(PHOTO_TOO_LARGE_MESSAGE);
+                    }
+
+                    output.write(buffer, 0, read);
+                }
+            }
+
+            // Backstop for the images whose dimensions aren't declared in the buffered prefix.
+            checkPixels(temporary);
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            moveInPlace(temporary, resolve(hash));
+
+            return hash;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the smallest stored thumbnail that is at least as big as the requested size, or the original if there is none.
+     *
+     * @param hash is the photo's hash.
+     * @param size is the requested size or <code>null</code> for the original.
+     * @return <code>StoredPhoto</code> with the content and media type.
+     * @throws EntityNotFoundException if there is no photo with this hash.
+     */
+    @Override
+    public StoredPhoto load(String hash, Integer size) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+            throw new EntityNotFoundException(PHOTO_NOT_FOUND_MESSAGE);
+        }
+
+        Integer resolvedSize = PhotoStorage.resolveThumbnailSize(size);
+
+        if (resolvedSize != null) {
+            boolean generated = areThumbnailsGenerated(hash);
+
+            for (int thumbnailSize : THUMBNAIL_SIZES) {
+                Path thumbnail = resolve(hash, "_" + thumbnailSize);
+
+                if (thumbnailSize >= resolvedSize && Files.isRegularFile(thumbnail)) {
+                    return new StoredPhoto(hash, thumbnailSize, new FileSystemResource(thumbnail), sniff(thumbnail), generated);
+                }
+            }
+
+            // Falls back to the original, which can be replaced by a thumbnail until they are generated.
+            return loadOriginal(hash, generated);
+        }
+
+        return loadOriginal(hash, true);
+    }
+
+    /**
+     * Stores a thumbnail of a photo.
+     *
+     * @param hash    is the original's hash.
+     * @param size    is the thumbnail's size.
+     * @param content is the encoded thumbnail.
+     * @throws IOException if the thumbnail couldn't be stored.
+     */
+    @Override
+    public void storeThumbnail(String hash, int size, byte[] content) throws IOException {
+        write(resolve(hash, "_" + size), content);
+    }
+
+    /**
+     * Marks the thumbnails of a photo as generated, the set of stored thumbnails won't change anymore.
+     *
+     * @param hash is the original's hash.
+     * @throws IOException if the mark couldn't be stored.
+     */
+    @Override
+    public void markThumbnailsGenerated(String hash) throws IOException {
+        write(resolve(hash, THUMBNAILS_GENERATED_SUFFIX), new byte[0]);
+    }
+
+    /**
+     * Checks if the thumbnails of a photo were generated.
+     *
+     * @param hash is the original's hash.
+     * @return <code>true</code> if they were generated.
+     */
+    @Override
+    public boolean areThumbnailsGenerated(String hash) {
+        return Files.exists(resolve(hash, THUMBNAILS_GENERATED_SUFFIX));
+    }
+
+    /**
+     * Deletes a photo with its thumbnails, unless it was stored again since the cutoff.
+     *
+     * @param hash   is the photo's hash.
+     * @param cutoff is the time the photo must have been stored before.
+     * @return <code>true</code> if the photo was deleted.
+     * @throws IOException if the photo couldn't be deleted.
+     */
+    @Override
+    public boolean delete(String hash, Instant cutoff) throws IOException {
+        Path path = resolve(hash);
+
+        try {
+            if (Files.getLastModifiedTime(path).toInstant().isAfter(cutoff)) {
+                return false;
+            }
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+
+        Files.deleteIfExists(resolve(hash, THUMBNAILS_GENERATED_SUFFIX));
+
+        for (int size : THUMBNAIL_SIZES) {
+            Files.deleteIfExists(resolve(hash, "_" + size));
+        }
+
+        return Files.deleteIfExists(path);
+    }
+
+    /**
+     * Returns the original photo.
+     *
+     * @param hash    is the photo's hash.
+     * @param isFinal is whether the response won't change.
+     * @return <code>StoredPhoto</code>
+     * @throws EntityNotFoundException if there is no photo with this hash.
+     */
+    private StoredPhoto loadOriginal(String hash, boolean isFinal) {
+        Path path = resolve(hash);
+
+        if (!Files.isRegularFile(path)) {
+            throw new EntityNotFoundException(PHOTO_NOT_FOUND_MESSAGE);
+        }
+
+        return new StoredPhoto(hash, null, new FileSystemResource(path), sniff(path), isFinal);
+    }
+
+    /**
+     * Checks the photo's dimensions, only the image's header is read, not its pixels.
+     *
+     * @param path is the photo's path.
+     * @throws IOException if the photo couldn't be read.
+     * @throws UnsupportedPhotoTypeException if the photo can't be decoded.
+     * @throws PhotoTooLargeException if the photo has too many pixels.
+     */
+    private void checkPixels(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            long pixels = countPixels(input);
+
+            if (pixels < 0) {
+                throw new UnsupportedPhotoTypeException(UNSUPPORTED_PHOTO_TYPE_MESSAGE);
+            }
+
+            checkPixels(pixels);
+        }
+    }
+
+    /**
+     * Checks the number of pixels against the limit.
+     *
+     * @param pixels is the number of pixels or <code>-1</code> if it's unknown.
+     * @throws PhotoTooLargeException if the photo has too many pixels.
+     */
+    private void checkPixels(long pixels) {
+        if (pixels > maxUploadPixels) {
+            throw new PhotoTooLargeException("photo_too_many_pixels");
+        }
+    }
+
+    /**
+     * Counts the image's pixels from its declared dimensions.
+     *
+     * @param input is the image's input, can be <code>null</code>.
+     * @return the number of pixels or <code>-1</code> if the dimensions couldn't be read.
+     */
+    private static long countPixels(ImageInputStream input) {
+        Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+
+        if (readers == null || !readers.hasNext()) {
+            return -1;
+        }
+
+        ImageReader reader = readers.next();
+
+        try {
+            reader.setInput(input, true, true);
+
+            return (long) reader.getWidth(0) * reader.getHeight(0);
+        } catch (IOException e) {
+            return -1;
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Writes a file through a temporary file.
+     *
+     * @param target  is the file's path.
+     * @param content is the file's content.
+     * @throws IOException if the file couldn't be written.
+     */
+    private void write(Path target, byte[] content) throws IOException {
+        Files.createDirectories(root);
+        Path temporary = Files.createTempFile(root, "write-", ".tmp");
+
+        try {
+            Files.write(temporary, content);
+            moveInPlace(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Moves a complete temporary file to its place, unless the file already exists.
+     * An existing file is touched instead, so the sweep keeps a photo that was just stored again.
+     *
+     * @param temporary is the temporary file.
+     * @param target    is the file's path.
+     * @throws IOException if the file couldn't be moved.
+     */
+    private static void moveInPlace(Path temporary, Path target) throws IOException {
+        if (Files.exists(target)) {
+            try {
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+
+                return;
+            } catch (NoSuchFileException e) {
+                // Deleted by the sweep in the meantime, it's moved in place again.
+            }
+        }
+
+        Files.createDirectories(target.getParent());
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Stored concurrently, the content is the same.
+        }
+    }
+
+    /**
+     * Detects the media type from the first bytes of the file.
+     *
+     * @param path is the photo's path.
+     * @return the media type.
+     */
+    private static MediaType sniff(Path path) {
+        try (InputStream input = Files.newInputStream(path)) {
+            byte[] header = new byte[PhotoMediaTypes.HEADER_LENGTH];
+
+            return PhotoMediaTypes.sniff(header, input.readNBytes(header, 0, header.length));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the path of a photo.
+     *
+     * @param hash is the photo's hash.
+     * @return the photo's path.
+     */
+    private Path resolve(String hash) {
+        return resolve(hash, "");
+    }
+
+    /**
+     * Returns the path of a file stored next to a photo.
+     *
+     * @param hash   is the photo's hash.
+     * @param suffix is the file's suffix, empty for the photo itself.
+     * @return the file's path.
+     */
+    private Path resolve(String hash, String suffix) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + suffix);
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     *
+     * @return <code>MessageDigest</code>
+     */
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 isn't supported", e);
+        }
+    }
+}
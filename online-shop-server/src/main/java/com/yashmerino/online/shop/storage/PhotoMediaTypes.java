@@ -0,0 +1,100 @@
+package com.yashmerino.online.shop.storage;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import org.springframework.http.MediaType;
+
+/**
+ * Detects the media type of a photo from its first bytes, the name and the declared type of an upload can't be trusted.
+ */
+public final class PhotoMediaTypes {
+
+    /**
+     * Number of bytes needed to detect every supported type.
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    /**
+     * WebP media type.
+     */
+    public static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
+
+    /**
+     * Private constructor to not allow instantiation.
+     */
+    private PhotoMediaTypes() {
+
+    }
+
+    /**
+     * Detects the media type.
+     *
+     * @param header is the first bytes of the content, can be shorter than {@link #HEADER_LENGTH}.
+     * @param length is the number of read bytes.
+     * @return the detected media type or <code>application/octet-stream</code> if it isn't a supported image.
+     */
+    public static MediaType sniff(final byte[] header, final int length) {
+        if (startsWith(header, length, 0, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG;
+        }
+
+        if (startsWith(header, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return MediaType.IMAGE_PNG;
+        }
+
+        if (startsWith(header, length, 0, 'G', 'I', 'F', '8')) {
+            return MediaType.IMAGE_GIF;
+        }
+
+        if (startsWith(header, length, 0, 'R', 'I', 'F', 'F') && startsWith(header, length, 8, 'W', 'E', 'B', 'P')) {
+            return IMAGE_WEBP;
+        }
+
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    /**
+     * Checks if the header contains the signature at the offset.
+     *
+     * @param header    is the header.
+     * @param length    is the number of read bytes.
+     * @param offset    is the signature's offset.
+     * @param signature is the signature.
+     * @return <code>true</code> if the signature matches.
+     */
+    private static boolean startsWith(final byte[] header, final int length, final int offset, final int... signature) {
+        if (length < offset + signature.length) {
+            return false;
+        }
+
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,215 @@
+package com.yashmerino.online.shop.storage;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runs on application startup and moves the photos left in the legacy columns of the <code>products</code> and <code>users</code> tables
+ * to the <code>product_photos</code> and <code>user_photos</code> tables.
+ * The <code>photo</code> LOBs are read a few rows at a time and streamed to the {@link PhotoStorage}, the <code>photo_hash</code> columns are copied,
+ * then the legacy columns are cleared, so the migration runs only once per row and is skipped when the legacy columns don't exist.
+ * Finally the references to the photos that aren't counted yet are counted.
+ */
+@Component
+@Slf4j
+public class PhotoMigrationRunner implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Tables with legacy photo columns and the tables their photos are moved to.
+     */
+    private static final List<PhotoTable> TABLES = List.of(
+            new PhotoTable("products", "product_photos", "product_id"),
+            new PhotoTable("users", "user_photos", "user_id"));
+
+    /**
+     * Number of rows whose LOBs are read at once, the driver may buffer a whole page.
+     */
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * JDBC template.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Photo storage.
+     */
+    private final PhotoStorage photoStorage;
+
+    /**
+     * Thumbnail generator.
+     */
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    /**
+     * Constructor.
+     *
+     * @param jdbcTemplate       is the JDBC template.
+     * @param photoStorage       is the photo storage.
+     * @param thumbnailGenerator is the thumbnail generator.
+     */
+    public PhotoMigrationRunner(JdbcTemplate jdbcTemplate, PhotoStorage photoStorage, ThumbnailGenerator thumbnailGenerator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.photoStorage = photoStorage;
+        this.thumbnailGenerator = thumbnailGenerator;
+    }
+
+    /**
+     * Migrates the legacy photos once the application is ready.
+     *
+     * @param event is the application ready event.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        for (PhotoTable table : TABLES) {
+            try {
+                int migrated = migrateLobs(table);
+
+                if (migrated > 0) {
+                    log.info("Moved {} photos from the {} table to the photo storage.", migrated, table.owners());
+                }
+            } catch (DataAccessException ex) {
+                log.debug("No legacy photos to migrate in the {} table.", table.owners(), ex);
+            } catch (UncheckedIOException ex) {
+                log.error("Failed to migrate the photos of the {} table", table.owners(), ex);
+            }
+
+            try {
+                int migrated = migrateHashes(table);
+
+                if (migrated > 0) {
+                    log.info("Moved {} photo hashes from the {} table to the {} table.", migrated, table.owners(), table.photos());
+                }
+            } catch (DataAccessException ex) {
+                log.debug("No legacy photo hashes to migrate in the {} table.", table.owners(), ex);
+            }
+        }
+
+        try {
+            int counted = countReferences();
+
+            if (counted > 0) {
+                log.info("Counted the references to {} photos.", counted);
+            }
+        } catch (DataAccessException ex) {
+            log.error("Failed to count the references to the photos", ex);
+        }
+    }
+
+    /**
+     * Moves the photo LOBs of a table to the storage.
+     *
+     * @param table is the table.
+     * @return the number of migrated photos.
+     */
+    private int migrateLobs(PhotoTable table) {
+        String select = "SELECT id, photo FROM " + table.owners() + " WHERE photo IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+        List<Object[]> photos = new ArrayList<>();
+        long after = Long.MIN_VALUE;
+        int migrated = 0;
+
+        do {
+            photos.clear();
+
+            jdbcTemplate.query(select, rs -> {
+                try (InputStream content = rs.getBinaryStream("photo")) {
+                    photos.add(new Object[]{rs.getLong("id"), photoStorage.store(content)});
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, after, PAGE_SIZE);
+
+            if (!photos.isEmpty()) {
+                List<Object[]> ids = photos.stream().map(photo -> new Object[]{photo[0]}).toList();
+
+                jdbcTemplate.batchUpdate("DELETE FROM " + table.photos() + " WHERE " + table.ownerColumn() + " = ?", ids);
+                jdbcTemplate.batchUpdate("INSERT INTO " + table.photos() + " (" + table.ownerColumn() + ", photo_hash) VALUES (?, ?)", photos);
+                jdbcTemplate.batchUpdate("UPDATE " + table.owners() + " SET photo = NULL WHERE id = ?", ids);
+                photos.forEach(photo -> thumbnailGenerator.submitAndWait((String) photo[1]));
+
+                after = (long) photos.get(photos.size() - 1)[0];
+                migrated += photos.size();
+            }
+        } while (photos.size() == PAGE_SIZE);
+
+        return migrated;
+    }
+
+    /**
+     * Moves the photo hashes of a table to its photos table.
+     *
+     * @param table is the table.
+     * @return the number of migrated hashes.
+     */
+    private int migrateHashes(PhotoTable table) {
+        int migrated = jdbcTemplate.update("INSERT INTO " + table.photos() + " (" + table.ownerColumn() + ", photo_hash) "
+                + "SELECT o.id, o.photo_hash FROM " + table.owners() + " o WHERE o.photo_hash IS NOT NULL "
+                + "AND NOT EXISTS (SELECT 1 FROM " + table.photos() + " p WHERE p." + table.ownerColumn() + " = o.id)");
+
+        jdbcTemplate.update("UPDATE " + table.owners() + " SET photo_hash = NULL WHERE photo_hash IS NOT NULL");
+
+        return migrated;
+    }
+
+    /**
+     * Counts the references to the photos that don't have a counter yet.
+     *
+     * @return the number of counted photos.
+     */
+    private int countReferences() {
+        String references = TABLES.stream()
+                .map(table -> "SELECT photo_hash FROM " + table.photos())
+                .collect(Collectors.joining(" UNION ALL "));
+
+        return jdbcTemplate.update("INSERT INTO photo_blobs (hash, reference_count, updated_at) "
+                + "SELECT r.photo_hash, COUNT(*), ? FROM (" + references + ") r "
+                + "WHERE NOT EXISTS (SELECT 1 FROM photo_blobs b WHERE b.hash = r.photo_hash) GROUP BY r.photo_hash", Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Table with legacy photo columns.
+     *
+     * @param owners      is the table with the legacy columns.
+     * @param photos      is the table the photos are moved to.
+     * @param ownerColumn is the column of the photos table that references the owners table.
+     */
+    private record PhotoTable(String owners, String photos, String ownerColumn) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.yashmerino.online.shop.storage;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.repositories.PhotoBlobRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Counts the references of the products and users to the stored photos.
+ */
+@Component
+public class PhotoReferences {
+
+    /**
+     * Photo blobs' repository.
+     */
+    private final PhotoBlobRepository photoBlobRepository;
+
+    /**
+     * Constructor.
+     *
+     * @param photoBlobRepository is the photo blobs' repository.
+     */
+    public PhotoReferences(PhotoBlobRepository photoBlobRepository) {
+        this.photoBlobRepository = photoBlobRepository;
+    }
+
+    /**
+     * Adds a reference to a photo.
+     *
+     * @param hash is the photo's hash.
+     */
+    public void acquire(final String hash) {
+        if (photoBlobRepository.increment(hash, Instant.now()) > 0) {
+            return;
+        }
+
+        try {
+            photoBlobRepository.insert(hash, Instant.now());
+        } catch (DataIntegrityViolationException e) {
+            // Counted concurrently by another upload of the same photo.
+            photoBlobRepository.increment(hash, Instant.now());
+        }
+    }
+
+    /**
+     * Removes a reference to a photo, the photo is deleted by the sweep once nothing references it.
+     *
+     * @param hash is the photo's hash or <code>null</code> if there was no photo.
+     */
+    public void release(final String hash) {
+        if (hash != null) {
+            photoBlobRepository.decrement(hash, Instant.now());
+        }
+    }
+
+    /**
+     * Moves a reference from a photo to another one.
+     *
+     * @param previous is the previous photo's hash or <code>null</code> if there was no photo.
+     * @param current  is the new photo's hash.
+     */
+    public void replace(final String previous, final String current) {
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+
+        acquire(current);
+        release(previous);
+    }
+}
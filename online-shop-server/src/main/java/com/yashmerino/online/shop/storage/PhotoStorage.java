@@ -0,0 +1,139 @@
+package com.yashmerino.online.shop.storage;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Storage of the products' and users' photos. Photos are addressed by the SHA-256 hash of their content,
+ * so the entities only keep the hash and identical photos are stored once.
+ * Thumbnails are stored next to their original under the same hash.
+ */
+public interface PhotoStorage {
+
+    /**
+     * Widths and heights of the generated thumbnails, in ascending order.
+     */
+    List<Integer> THUMBNAIL_SIZES = List.of(64, 256, 1024);
+
+    /**
+     * Resolves a requested size to the thumbnail size that serves it, the requests that resolve to the same size get the same photo.
+     *
+     * @param size is the requested size or <code>null</code> for the original.
+     * @return the smallest thumbnail size that is at least as big as the requested size, or <code>null</code> for the original.
+     */
+    static Integer resolveThumbnailSize(Integer size) {
+        if (size != null) {
+            for (int thumbnailSize : THUMBNAIL_SIZES) {
+                if (thumbnailSize >= size) {
+                    return thumbnailSize;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Stores a photo.
+     *
+     * @param content is the photo's content, it isn't closed.
+     * @return the hex encoded SHA-256 hash of the content.
+     * @throws IOException if the photo couldn't be stored.
+     */
+    String store(InputStream content) throws IOException;
+
+    /**
+     * Stores a photo uploaded by a client, checking its type and size while it's streamed.
+     *
+     * @param content is the photo's content, it isn't closed.
+     * @param length  is the declared length of the content or <code>-1</code> if it's unknown.
+     * @return the hex encoded SHA-256 hash of the content.
+     * @throws IOException if the photo couldn't be stored.
+     * @throws com.yashmerino.online.shop.exceptions.UnsupportedPhotoTypeException if the content isn't a supported image.
+     * @throws com.yashmerino.online.shop.exceptions.PhotoTooLargeException if the photo has too many bytes or pixels.
+     */
+    String upload(InputStream content, long length) throws IOException;
+
+    /**
+     * Returns a stored photo.
+     *
+     * @param hash is the photo's hash.
+     * @return <code>StoredPhoto</code> with the photo's content and media type.
+     * @throws jakarta.persistence.EntityNotFoundException if there is no photo with this hash.
+     */
+    default StoredPhoto load(String hash) {
+        return load(hash, null);
+    }
+
+    /**
+     * Returns the smallest stored thumbnail that is at least as big as the requested size, or the original if there is none.
+     *
+     * @param hash is the photo's hash.
+     * @param size is the requested size or <code>null</code> for the original.
+     * @return <code>StoredPhoto</code> with the content and media type.
+     * @throws jakarta.persistence.EntityNotFoundException if there is no photo with this hash.
+     */
+    StoredPhoto load(String hash, Integer size);
+
+    /**
+     * Stores a thumbnail of a photo.
+     *
+     * @param hash    is the original's hash.
+     * @param size    is the thumbnail's size.
+     * @param content is the encoded thumbnail.
+     * @throws IOException if the thumbnail couldn't be stored.
+     */
+    void storeThumbnail(String hash, int size, byte[] content) throws IOException;
+
+    /**
+     * Marks the thumbnails of a photo as generated, the set of stored thumbnails won't change anymore.
+     *
+     * @param hash is the original's hash.
+     * @throws IOException if the mark couldn't be stored.
+     */
+    void markThumbnailsGenerated(String hash) throws IOException;
+
+    /**
+     * Checks if the thumbnails of a photo were generated.
+     *
+     * @param hash is the original's hash.
+     * @return <code>true</code> if they were generated.
+     */
+    boolean areThumbnailsGenerated(String hash);
+
+    /**
+     * Deletes a photo with its thumbnails, unless it was stored again since the cutoff.
+     *
+     * @param hash   is the photo's hash.
+     * @param cutoff is the time the photo must have been stored before.
+     * @return <code>true</code> if the photo was deleted.
+     * @throws IOException if the photo couldn't be deleted.
+     */
+    boolean delete(String hash, Instant cutoff) throws IOException;
+}
@@ -0,0 +1,104 @@
+package com.yashmerino.online.shop.storage;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.repositories.PhotoBlobRepository;
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Periodically deletes the stored photos that nothing references anymore.
+ * A photo is only deleted once it stayed unreferenced for the grace period, so an upload that is being saved keeps its photo.
+ */
+@Component
+@Slf4j
+public class PhotoSweeper {
+
+    /**
+     * Photo blobs' repository.
+     */
+    private final PhotoBlobRepository photoBlobRepository;
+
+    /**
+     * Photo storage.
+     */
+    private final PhotoStorage photoStorage;
+
+    /**
+     * Time a photo must stay unreferenced before it's deleted.
+     */
+    private final Duration gracePeriod;
+
+    /**
+     * Constructor.
+     *
+     * @param photoBlobRepository   is the photo blobs' repository.
+     * @param photoStorage          is the photo storage.
+     * @param applicationProperties is the application's properties.
+     */
+    public PhotoSweeper(PhotoBlobRepository photoBlobRepository, PhotoStorage photoStorage, ApplicationProperties applicationProperties) {
+        this.photoBlobRepository = photoBlobRepository;
+        this.photoStorage = photoStorage;
+        this.gracePeriod = applicationProperties.photoSweepGracePeriod;
+    }
+
+    /**
+     * Deletes the unreferenced photos.
+     *
+     * @return the number of deleted photos.
+     */
+    @Scheduled(initialDelayString = "${photo.sweep.interval:PT1H}", fixedDelayString = "${photo.sweep.interval:PT1H}")
+    public int sweep() {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        int deleted = 0;
+
+        for (String hash : photoBlobRepository.findUnreferenced(cutoff)) {
+            // The row is deleted first, a photo referenced again in the meantime keeps its row and its file.
+            if (photoBlobRepository.deleteUnreferenced(hash, cutoff) == 0) {
+                continue;
+            }
+
+            try {
+                if (photoStorage.delete(hash, cutoff)) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                log.warn("Failed to delete the unreferenced photo {}", hash, e);
+            }
+        }
+
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced photos.", deleted);
+        }
+
+        return deleted;
+    }
+}
@@ -0,0 +1,242 @@
+package com.yashmerino.online.shop.storage;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.utils.ApplicationProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates the thumbnails of uploaded photos in the background, on a bounded worker pool.
+ * A photo gets a thumbnail for every size in {@link PhotoStorage#THUMBNAIL_SIZES} smaller than itself,
+ * until the job finishes the original is served instead. Jobs that don't fit in the queue are retried later.
+ */
+@Component
+@Slf4j
+public class ThumbnailGenerator {
+
+    /**
+     * Photo storage.
+     */
+    private final PhotoStorage photoStorage;
+
+    /**
+     * Worker pool.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Hashes of the photos whose jobs didn't fit in the queue, they're queued again by {@link #retryPending()}.
+     */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor.
+     *
+     * @param photoStorage          is the photo storage.
+     * @param applicationProperties is the application properties.
+     */
+    public ThumbnailGenerator(PhotoStorage photoStorage, ApplicationProperties applicationProperties) {
+        this.photoStorage = photoStorage;
+
+        AtomicInteger threads = new AtomicInteger();
+        int poolSize = applicationProperties.photoThumbnailThreads;
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(applicationProperties.photoThumbnailQueueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+
+                    return thread;
+                });
+        // Jobs put straight into the queue by submitAndWait don't start workers.
+        this.executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * Queues the generation of a photo's thumbnails.
+     *
+     * @param hash is the photo's hash.
+     */
+    public void submit(final String hash) {
+        if (photoStorage.areThumbnailsGenerated(hash)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> generate(hash));
+        } catch (RejectedExecutionException e) {
+            pending.add(hash);
+            log.warn("Thumbnail queue is full, thumbnails of {} will be generated later.", hash);
+        }
+    }
+
+    /**
+     * Queues the generation of a photo's thumbnails, waiting for room in the queue if it's full.
+     *
+     * @param hash is the photo's hash.
+     */
+    public void submitAndWait(final String hash) {
+        if (photoStorage.areThumbnailsGenerated(hash) || executor.isShutdown()) {
+            return;
+        }
+
+        try {
+            executor.getQueue().put(() -> generate(hash));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.add(hash);
+        }
+    }
+
+    /**
+     * Queues again the jobs that didn't fit in the queue, until the queue is full again.
+     *
+     * @return the number of queued jobs.
+     */
+    @Scheduled(initialDelayString = "${photo.thumbnail.retry-interval:PT1M}", fixedDelayString = "${photo.thumbnail.retry-interval:PT1M}")
+    public int retryPending() {
+        int queued = 0;
+
+        for (String hash : pending) {
+            if (photoStorage.areThumbnailsGenerated(hash)) {
+                pending.remove(hash);
+                continue;
+            }
+
+            try {
+                executor.execute(() -> generate(hash));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+
+            pending.remove(hash);
+            queued++;
+        }
+
+        return queued;
+    }
+
+    /**
+     * Generates the thumbnails of a photo.
+     *
+     * @param hash is the photo's hash.
+     */
+    private void generate(final String hash) {
+        try {
+            BufferedImage original;
+
+            try (InputStream content = photoStorage.load(hash).content().getInputStream()) {
+                original = ImageIO.read(content);
+            }
+
+            if (original != null) {
+                boolean alpha = original.getColorModel().hasAlpha();
+                int longestSide = Math.max(original.getWidth(), original.getHeight());
+
+                for (int size : PhotoStorage.THUMBNAIL_SIZES) {
+                    if (size < longestSide) {
+                        photoStorage.storeThumbnail(hash, size, encode(scale(original, size, alpha), alpha));
+                    }
+                }
+            } else {
+                log.debug("Photo {} isn't a readable image, no thumbnails were generated.", hash);
+            }
+
+            photoStorage.markThumbnailsGenerated(hash);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to generate the thumbnails of {}", hash, e);
+        }
+    }
+
+    /**
+     * Scales an image so its longest side matches the size.
+     *
+     * @param image is the image.
+     * @param size  is the size of the longest side.
+     * @param alpha is whether the image has transparency.
+     * @return the scaled image.
+     */
+    private static BufferedImage scale(final BufferedImage image, final int size, final boolean alpha) {
+        double ratio = (double) size / Math.max(image.getWidth(), image.getHeight());
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return scaled;
+    }
+
+    /**
+     * Encodes a thumbnail, as PNG if it has transparency and as JPEG otherwise.
+     *
+     * @param image is the thumbnail.
+     * @param alpha is whether the thumbnail has transparency.
+     * @return the encoded thumbnail.
+     * @throws IOException if the thumbnail couldn't be encoded.
+     */
+    private static byte[] encode(final BufferedImage image, final boolean alpha) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, alpha ? "png" : "jpg", output);
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Stops the workers, queued jobs are dropped.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
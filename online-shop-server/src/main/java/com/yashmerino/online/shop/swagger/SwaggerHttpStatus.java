@@ -51,6 +51,16 @@ public class SwaggerHttpStatus {
      */
     public static final String NO_CONTENT = "204";
 
+    /**
+     * Status code for partial content.
+     */
+    public static final String PARTIAL_CONTENT = "206";
+
+    /**
+     * Status code for not modified.
+     */
+    public static final String NOT_MODIFIED = "304";
+
     /**
      * Status code for bad request.
      */
@@ -81,6 +91,21 @@ public class SwaggerHttpStatus {
      */
     public static final String CONFLICT = "409";
 
+    /**
+     * Status code for precondition failed.
+     */
+    public static final String PRECONDITION_FAILED = "412";
+
+    /**
+     * Status code for payload too large.
+     */
+    public static final String PAYLOAD_TOO_LARGE = "413";
+
+    /**
+     * Status code for unsupported media type.
+     */
+    public static final String UNSUPPORTED_MEDIA_TYPE = "415";
+
     /**
      * Status code for internal server error.
      */
@@ -51,6 +51,31 @@ public class SwaggerMessages {
      */
     public static final String USER_SIGNED_IN = "User successfully signed in.";
 
+    /**
+     * Message when a username's availability is returned.
+     */
+    public static final String USERNAME_AVAILABILITY_RETURNED = "Username's availability is returned.";
+
+    /**
+     * Message when users are successfully imported.
+     */
+    public static final String USERS_IMPORTED = "Users successfully imported.";
+
+    /**
+     * Message when a user is successfully logged out.
+     */
+    public static final String USER_LOGGED_OUT = "User successfully logged out, all the user's tokens are revoked.";
+
+    /**
+     * Message when a refresh token is successfully exchanged.
+     */
+    public static final String TOKEN_REFRESHED = "Token successfully refreshed.";
+
+    /**
+     * Message when a refresh token is unknown, expired, revoked or reused.
+     */
+    public static final String INVALID_REFRESH_TOKEN = "Refresh token is not valid, reusing it revokes all the tokens issued from the same login.";
+
     /**
      * Message when a user does not exist.
      */
@@ -126,6 +151,11 @@ public class SwaggerMessages {
      */
     public static final String RETURN_PRODUCTS = "Returns all the products.";
 
+    /**
+     * Message when the number of products per category was returned.
+     */
+    public static final String RETURN_CATEGORY_FACETS = "Returns the number of products in every category.";
+
     /**
      * Message when sellers' products were returned.
      */
@@ -141,6 +171,11 @@ public class SwaggerMessages {
      */
     public static final String CATEGORIES_SUCCESSFULLY_RETRIEVED = "Categories successfully retrieved.";
 
+    /**
+     * Message when categories are successfully refreshed.
+     */
+    public static final String CATEGORIES_SUCCESSFULLY_REFRESHED = "Categories successfully refreshed.";
+
     /**
      * Message when user photo is successfully updated.
      */
@@ -165,4 +200,29 @@ public class SwaggerMessages {
      * Message when user information is successfully updated.
      */
     public static final String USER_INFO_UPDATED = "User information was successfully updated.";
+
+    /**
+     * Message when the resource didn't change since the passed ETag.
+     */
+    public static final String NOT_MODIFIED = "Resource wasn't modified.";
+
+    /**
+     * Message when the requested range of the resource was returned.
+     */
+    public static final String PARTIAL_CONTENT = "Returns the requested range of the resource.";
+
+    /**
+     * Message when the product was modified by someone else.
+     */
+    public static final String PRODUCT_MODIFIED = "Product was modified by someone else.";
+
+    /**
+     * Message when the uploaded photo has too many bytes or pixels.
+     */
+    public static final String PHOTO_TOO_LARGE = "Photo is too large.";
+
+    /**
+     * Message when the uploaded photo isn't a supported image.
+     */
+    public static final String UNSUPPORTED_PHOTO_TYPE = "Photo isn't a JPEG, PNG or GIF image.";
 }
@@ -25,6 +25,9 @@ package com.yashmerino.online.shop.utils;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
 
 /**
  * Class that stores properties.
@@ -37,6 +40,72 @@ public class ApplicationProperties {
     @Value("${jwt.secret}")
     public String jwtSecret;
 
+    /**
+     * Maximum number of verified JWT tokens that are cached.
+     */
+    @Value("${jwt.cache.max-size:10000}")
+    public long jwtCacheMaxSize;
+
+    /**
+     * Time the users' token versions are cached, a revoked token can still be used on other instances for this long.
+     */
+    @Value("${jwt.token-version.ttl:30s}")
+    public Duration jwtTokenVersionTtl;
+
+    /**
+     * Time a refresh token is valid for, every refresh issues a new one.
+     */
+    @Value("${jwt.refresh.ttl:14d}")
+    public Duration jwtRefreshTtl;
+
+    /**
+     * Public routes whose JWT Tokens aren't verified, e.g. <code>GET /api/product/*</code>, only for routes that never read the user.
+     */
+    @Value("${jwt.filter.public-routes:}")
+    public String[] jwtPublicRoutes;
+
+    /**
+     * BCrypt cost of the passwords, the stored passwords with a lower cost are encoded again on login.
+     */
+    @Value("${password.bcrypt.strength:10}")
+    public int passwordBcryptStrength;
+
+    /**
+     * Number of threads that hash the passwords.
+     */
+    @Value("${password.hasher.threads:2}")
+    public int passwordHasherThreads;
+
+    /**
+     * Maximum number of passwords waiting to be hashed, the requests over it are rejected.
+     */
+    @Value("${password.hasher.queue-size:50}")
+    public int passwordHasherQueueSize;
+
+    /**
+     * Maximum number of users in one import request.
+     */
+    @Value("${user.import.max-size:10000}")
+    public int userImportMaxSize;
+
+    /**
+     * Number of imported users flushed at once, it should match the JDBC batch size.
+     */
+    @Value("${user.import.batch-size:50}")
+    public int userImportBatchSize;
+
+    /**
+     * Number of usernames the username filter is sized for, it grows to twice the users' count when rebuilt.
+     */
+    @Value("${username.filter.expected-size:1000000}")
+    public long usernameFilterExpectedSize;
+
+    /**
+     * False positive rate of the username filter at its expected size.
+     */
+    @Value("${username.filter.false-positive-rate:0.01}")
+    public double usernameFilterFalsePositiveRate;
+
     /**
      * Algolia private API key.
      */
@@ -60,4 +129,82 @@ public class ApplicationProperties {
      */
     @Value("${algolia.index.name}")
     public String algoliaIndexName;
+
+    /**
+     * Whether products are cached in memory.
+     */
+    @Value("${product.cache.enabled:true}")
+    public boolean isProductCacheEnabled;
+
+    /**
+     * Maximum number of cached products.
+     */
+    @Value("${product.cache.max-size:10000}")
+    public long productCacheMaxSize;
+
+    /**
+     * Time after which a cached product expires.
+     */
+    @Value("${product.cache.ttl:10m}")
+    public Duration productCacheTtl;
+
+    /**
+     * Maximum number of products returned by a batch lookup.
+     */
+    @Value("${product.batch.max-size:100}")
+    public int productBatchMaxSize;
+
+    /**
+     * Directory where the photos are stored.
+     */
+    @Value("${photo.storage.path:photos}")
+    public String photoStoragePath;
+
+    /**
+     * Number of threads generating the photos' thumbnails.
+     */
+    @Value("${photo.thumbnail.threads:2}")
+    public int photoThumbnailThreads;
+
+    /**
+     * Maximum number of photos waiting for their thumbnails.
+     */
+    @Value("${photo.thumbnail.queue-size:100}")
+    public int photoThumbnailQueueSize;
+
+    /**
+     * Maximum size of an uploaded photo.
+     */
+    @Value("${photo.upload.max-size:5MB}")
+    public DataSize photoUploadMaxSize;
+
+    /**
+     * Maximum number of pixels of an uploaded photo.
+     */
+    @Value("${photo.upload.max-pixels:40000000}")
+    public long photoUploadMaxPixels;
+
+    /**
+     * Whether the most requested photos are cached.
+     */
+    @Value("${photo.cache.enabled:true}")
+    public boolean isPhotoCacheEnabled;
+
+    /**
+     * Maximum size of the photo cache, it's allocated outside the heap.
+     */
+    @Value("${photo.cache.max-size:64MB}")
+    public DataSize photoCacheMaxSize;
+
+    /**
+     * Maximum size of a cached photo.
+     */
+    @Value("${photo.cache.max-entry-size:1MB}")
+    public DataSize photoCacheMaxEntrySize;
+
+    /**
+     * Time an unreferenced photo is kept before the sweep deletes it.
+     */
+    @Value("${photo.sweep.grace-period:1h}")
+    public Duration photoSweepGracePeriod;
 }
@@ -0,0 +1,93 @@
+package com.yashmerino.online.shop.utils;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.InvalidInputException;
+import com.yashmerino.online.shop.storage.StoredPhoto;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utils class that builds the photos' responses.
+ * The ETag is the content's hash. A URL versioned with the current hash (<code>?v=hash</code>) never changes its content
+ * once the thumbnails are generated, so it's cached for a year, other URLs are revalidated. <code>Range</code> requests and <code>If-None-Match</code>
+ * are answered by Spring MVC from the returned resource.
+ */
+public final class PhotoResponses {
+
+    /**
+     * Cache control of hash-versioned URLs.
+     */
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
+    /**
+     * Cache control of URLs that can change their content.
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    /**
+     * Private constructor to not allow instantiation.
+     */
+    private PhotoResponses() {
+
+    }
+
+    /**
+     * Validates the requested thumbnail size.
+     *
+     * @param size is the requested size, can be <code>null</code>.
+     * @return the size.
+     * @throws InvalidInputException if the size isn't positive.
+     */
+    public static Integer checkSize(final Integer size) {
+        if (size != null && size <= 0) {
+            throw new InvalidInputException("invalid_photo_size");
+        }
+
+        return size;
+    }
+
+    /**
+     * Builds the response.
+     *
+     * @param photo   is the photo or <code>null</code> if there is none.
+     * @param version is the requested version, can be <code>null</code>.
+     * @return <code>ResponseEntity</code>
+     */
+    public static ResponseEntity<Resource> ok(final StoredPhoto photo, final String version) {
+        if (photo == null) {
+            return ResponseEntity.ok().build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(photo.eTag())
+                .cacheControl(photo.isFinal() && photo.hash().equals(version) ? IMMUTABLE : REVALIDATE)
+                .contentType(photo.mediaType())
+                .body(photo.content());
+    }
+}
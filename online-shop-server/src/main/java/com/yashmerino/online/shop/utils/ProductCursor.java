@@ -0,0 +1,200 @@
+package com.yashmerino.online.shop.utils;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.InvalidInputException;
+import com.yashmerino.online.shop.model.projections.ProductSummary;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset (cursor) paginated products listing.
+ * Products are ordered either by id or by (price, id), ascending or descending, the cursor remembers
+ * the order and the key of the last returned product so the next page can be read with an index seek.
+ */
+@Getter
+public class ProductCursor {
+
+    /**
+     * Possible orders of a keyset listing.
+     */
+    @Getter
+    public enum Order {
+
+        /**
+         * Ordered by id.
+         */
+        ID(false, false),
+
+        /**
+         * Ordered by id, descending.
+         */
+        ID_DESC(false, true),
+
+        /**
+         * Ordered by price, then by id.
+         */
+        PRICE(true, false),
+
+        /**
+         * Ordered by price, then by id, both descending.
+         */
+        PRICE_DESC(true, true);
+
+        /**
+         * Whether the products are ordered by price.
+         */
+        private final boolean byPrice;
+
+        /**
+         * Whether the products are ordered descending.
+         */
+        private final boolean descending;
+
+        /**
+         * Constructor.
+         *
+         * @param byPrice    is whether the products are ordered by price.
+         * @param descending is whether the products are ordered descending.
+         */
+        Order(boolean byPrice, boolean descending) {
+            this.byPrice = byPrice;
+            this.descending = descending;
+        }
+    }
+
+    /**
+     * Message used when the passed cursor can't be decoded.
+     */
+    private static final String INVALID_CURSOR_MESSAGE = "invalid_cursor";
+
+    /**
+     * Listing's order.
+     */
+    private final Order order;
+
+    /**
+     * Id of the last returned product, <code>null</code> for the first page.
+     */
+    private final Long id;
+
+    /**
+     * Price of the last returned product, used only with the orders by price.
+     */
+    private final Double price;
+
+    /**
+     * Constructor.
+     *
+     * @param order is the listing's order.
+     * @param id    is the id of the last returned product.
+     * @param price is the price of the last returned product.
+     */
+    private ProductCursor(Order order, Long id, Double price) {
+        this.order = order;
+        this.id = id;
+        this.price = price;
+    }
+
+    /**
+     * Returns the cursor of the first page.
+     *
+     * @param sort is the requested sort, sorting by price selects the orders by price, otherwise the direction of the id's sort is kept.
+     * @return <code>ProductCursor</code>
+     */
+    public static ProductCursor first(final Sort sort) {
+        Sort.Order priceOrder = sort.getOrderFor("price");
+        Sort.Order idOrder = sort.getOrderFor("id");
+
+        Order order;
+        if (priceOrder != null) {
+            order = priceOrder.isDescending() ? Order.PRICE_DESC : Order.PRICE;
+        } else {
+            order = idOrder != null && idOrder.isDescending() ? Order.ID_DESC : Order.ID;
+        }
+
+        return new ProductCursor(order, null, null);
+    }
+
+    /**
+     * Decodes a cursor token.
+     *
+     * @param token is the token returned in the previous page.
+     * @return <code>ProductCursor</code>
+     * @throws InvalidInputException if the token is malformed.
+     */
+    public static ProductCursor decode(final String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+
+            Order order = Order.valueOf(parts[0]);
+
+            if (parts.length == 2 && !order.isByPrice()) {
+                return new ProductCursor(order, Long.valueOf(parts[1]), null);
+            }
+
+            if (parts.length == 3 && order.isByPrice()) {
+                return new ProductCursor(order, Long.valueOf(parts[2]), Double.valueOf(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException(INVALID_CURSOR_MESSAGE);
+        }
+
+        throw new InvalidInputException(INVALID_CURSOR_MESSAGE);
+    }
+
+    /**
+     * Returns the cursor that points right after the passed product.
+     *
+     * @param last is the last product of the current page.
+     * @return <code>ProductCursor</code>
+     */
+    public ProductCursor next(final ProductSummary last) {
+        return new ProductCursor(order, last.getId(), order.isByPrice() ? last.getPrice() : null);
+    }
+
+    /**
+     * Checks if the cursor points to the first page.
+     *
+     * @return <code>true</code> if it's the first page and <code>false</code> otherwise.
+     */
+    public boolean isFirst() {
+        return id == null;
+    }
+
+    /**
+     * Encodes the cursor to an opaque token.
+     *
+     * @return the token.
+     */
+    public String encode() {
+        String value = order.isByPrice() ? order.name() + ":" + price + ":" + id : order.name() + ":" + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
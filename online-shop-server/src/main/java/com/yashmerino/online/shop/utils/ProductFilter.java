@@ -0,0 +1,100 @@
+package com.yashmerino.online.shop.utils;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.InvalidInputException;
+import lombok.Getter;
+
+/**
+ * Filters of the products listing, passed as the <code>category</code>, <code>minPrice</code>
+ * and <code>maxPrice</code> parameters. A <code>null</code> filter isn't applied.
+ */
+@Getter
+public class ProductFilter {
+
+    /**
+     * Filter that matches every product.
+     */
+    public static final ProductFilter NONE = new ProductFilter(null, null, null);
+
+    /**
+     * Category's id.
+     */
+    private final Long categoryId;
+
+    /**
+     * Minimum price, inclusive.
+     */
+    private final Double minPrice;
+
+    /**
+     * Maximum price, inclusive.
+     */
+    private final Double maxPrice;
+
+    /**
+     * Constructor.
+     *
+     * @param categoryId is the category's id.
+     * @param minPrice   is the minimum price.
+     * @param maxPrice   is the maximum price.
+     */
+    private ProductFilter(Long categoryId, Double minPrice, Double maxPrice) {
+        this.categoryId = categoryId;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Builds the filter from the request parameters.
+     *
+     * @param categoryId is the category's id, can be <code>null</code>.
+     * @param minPrice   is the minimum price, can be <code>null</code>.
+     * @param maxPrice   is the maximum price, can be <code>null</code>.
+     * @return <code>ProductFilter</code>
+     * @throws InvalidInputException if a price is negative or the minimum is greater than the maximum.
+     */
+    public static ProductFilter of(final Long categoryId, final Double minPrice, final Double maxPrice) {
+        if ((minPrice != null && minPrice < 0) || (maxPrice != null && maxPrice < 0)
+                || (minPrice != null && maxPrice != null && minPrice > maxPrice)) {
+            throw new InvalidInputException("invalid_price_range");
+        }
+
+        if (categoryId == null && minPrice == null && maxPrice == null) {
+            return NONE;
+        }
+
+        return new ProductFilter(categoryId, minPrice, maxPrice);
+    }
+
+    /**
+     * Checks if no filter is applied.
+     *
+     * @return <code>true</code> if every product matches.
+     */
+    public boolean isEmpty() {
+        return categoryId == null && minPrice == null && maxPrice == null;
+    }
+}
@@ -29,6 +29,8 @@ import com.yashmerino.online.shop.model.Product;
 import com.yashmerino.online.shop.model.dto.CartItemDTO;
 import com.yashmerino.online.shop.model.dto.CategoryDTO;
 import com.yashmerino.online.shop.model.dto.ProductDTO;
+import com.yashmerino.online.shop.model.projections.CartItemSummary;
+import com.yashmerino.online.shop.model.projections.ProductSummary;
 
 /**
  * Utils class that converts request body to an entity;
@@ -71,6 +73,24 @@ public class RequestBodyToEntityConverter {
         productDTO.setDescription(product.getDescription());
         productDTO.setPrice(product.getPrice());
         productDTO.setCategories(product.getCategories());
+        productDTO.setVersion(product.getVersion());
+
+        return productDTO;
+    }
+
+    /**
+     * Converts a product summary to ProductDTO.
+     *
+     * @param summary is the product summary.
+     * @return <code>ProductDTO</code>
+     */
+    public static ProductDTO convertToProductDTO(final ProductSummary summary) {
+        ProductDTO productDTO = new ProductDTO();
+        productDTO.setId(summary.getId().toString());
+        productDTO.setName(summary.getName());
+        productDTO.setDescription(summary.getDescription());
+        productDTO.setPrice(summary.getPrice());
+        productDTO.setCategories(summary.getCategories());
 
         return productDTO;
     }
@@ -93,6 +113,24 @@ public class RequestBodyToEntityConverter {
         return cartItemDTO;
     }
 
+    /**
+     * Converts a cart item summary to cart item DTO.
+     *
+     * @param summary is the cart item summary.
+     * @return <code>CartItemDTO</code>
+     */
+    public static CartItemDTO convertToCartItemDTO(CartItemSummary summary) {
+        CartItemDTO cartItemDTO = new CartItemDTO();
+        cartItemDTO.setId(summary.getId());
+        cartItemDTO.setCartId(summary.getCartId());
+        cartItemDTO.setName(summary.getName());
+        cartItemDTO.setPrice(summary.getPrice());
+        cartItemDTO.setProductId(summary.getProductId());
+        cartItemDTO.setQuantity(summary.getQuantity());
+
+        return cartItemDTO;
+    }
+
     /**
      * Converts a category entity to category DTO.
      *
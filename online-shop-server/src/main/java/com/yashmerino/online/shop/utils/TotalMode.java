@@ -0,0 +1,64 @@
+package com.yashmerino.online.shop.utils;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import com.yashmerino.online.shop.exceptions.InvalidInputException;
+
+/**
+ * How the total number of items is computed for a paginated listing, passed as the <code>includeTotal</code> parameter.
+ */
+public enum TotalMode {
+
+    /**
+     * Totals are omitted, no count query is executed.
+     */
+    NONE,
+
+    /**
+     * Totals are counted in the database.
+     */
+    EXACT,
+
+    /**
+     * Totals come from the maintained in-memory counters.
+     */
+    APPROX;
+
+    /**
+     * Parses the value of the <code>includeTotal</code> parameter.
+     *
+     * @param value is one of <code>false</code>, <code>exact</code> or <code>approx</code>.
+     * @return the total mode.
+     * @throws InvalidInputException if the value is unknown.
+     */
+    public static TotalMode parse(final String value) {
+        return switch (value.toLowerCase()) {
+            case "false" -> NONE;
+            case "exact" -> EXACT;
+            case "approx" -> APPROX;
+            default -> throw new InvalidInputException("invalid_include_total");
+        };
+    }
+}
@@ -23,9 +23,13 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yashmerino.online.shop.model.dto.auth.LoginDTO;
 import com.yashmerino.online.shop.model.dto.auth.RegisterDTO;
+import com.yashmerino.online.shop.repositories.UserRepository;
+import com.yashmerino.online.shop.utils.QueryCounter;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,13 +38,19 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
+
 import static com.yashmerino.online.shop.utils.Role.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -69,6 +79,24 @@ class AuthControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    /**
+     * Users' repository.
+     */
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Entity manager.
+     */
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Counter of the executed SQL statements.
+     */
+    @Autowired
+    private QueryCounter queryCounter;
+
     /**
      * Register DTO.
      */
@@ -122,6 +150,45 @@ class AuthControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains(",\"status\":409,\"error\":\"username_taken\"}"));
     }
 
+    /**
+     * Tests that /username-available reflects the registered users.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void usernameAvailableTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/auth/username-available").param("username", "test")).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"username\":\"test\",\"available\":true}", result.getResponse().getContentAsString());
+        assertEquals("no-store", result.getResponse().getHeader("Cache-Control"));
+
+        result = mvc.perform(get("/api/auth/username-available").param("username", "user")).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"username\":\"user\",\"available\":false}", result.getResponse().getContentAsString());
+
+        mvc.perform(post("/api/auth/register").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(registerDTO))).andExpect(status().isOk());
+
+        result = mvc.perform(get("/api/auth/username-available").param("username", "test")).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"username\":\"test\",\"available\":false}", result.getResponse().getContentAsString());
+    }
+
+    /**
+     * Tests that /username-available treats the usernames that differ only by case as the same username.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void usernameAvailableIgnoresCaseTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/auth/username-available").param("username", "USER")).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"username\":\"USER\",\"available\":false}", result.getResponse().getContentAsString());
+
+        registerDTO.setUsername("Test");
+        mvc.perform(post("/api/auth/register").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(registerDTO))).andExpect(status().isOk());
+
+        result = mvc.perform(get("/api/auth/username-available").param("username", "test")).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"username\":\"test\",\"available\":false}", result.getResponse().getContentAsString());
+    }
+
     /**
      * Test if an email has no sign, is invalid and is not provided.
      */
@@ -195,6 +262,107 @@ class AuthControllerTest {
         assertTrue(content.contains("Bearer "));
     }
 
+    /**
+     * Tests that /logout revokes the user's tokens, so neither the JWT Token nor the refresh token is accepted afterwards.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void logoutRevokesTokenTest() throws Exception {
+        mvc.perform(post("/api/auth/register").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(registerDTO))).andExpect(status().isOk());
+
+        MvcResult result = mvc.perform(post("/api/auth/login").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(loginDTO))).andExpect(status().isOk()).andReturn();
+
+        JsonNode authResponse = objectMapper.readTree(result.getResponse().getContentAsString());
+        String authorization = authResponse.get("tokenType").asText() + authResponse.get("accessToken").asText();
+        String refreshToken = authResponse.get("refreshToken").asText();
+
+        result = mvc.perform(post("/api/auth/logout").header(AUTHORIZATION, authorization)).andExpect(status().isOk()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("user_logged_out_successfully"));
+
+        mvc.perform(post("/api/auth/logout").header(AUTHORIZATION, authorization)).andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/auth/logout")).andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/auth/refresh").contentType(
+                APPLICATION_JSON).content("{\"refreshToken\":\"" + refreshToken + "\"}")).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Tests that /refresh exchanges a refresh token once, and that reusing it revokes the tokens issued after it.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void refreshRotatesTokenTest() throws Exception {
+        mvc.perform(post("/api/auth/register").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(registerDTO))).andExpect(status().isOk());
+
+        MvcResult result = mvc.perform(post("/api/auth/login").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(loginDTO))).andExpect(status().isOk()).andReturn();
+        String refreshToken = objectMapper.readTree(result.getResponse().getContentAsString()).get("refreshToken").asText();
+
+        result = mvc.perform(post("/api/auth/refresh").contentType(
+                APPLICATION_JSON).content("{\"refreshToken\":\"" + refreshToken + "\"}")).andExpect(status().isOk()).andReturn();
+        JsonNode refreshed = objectMapper.readTree(result.getResponse().getContentAsString());
+        String rotatedToken = refreshed.get("refreshToken").asText();
+
+        assertTrue(refreshed.get("accessToken").asText().length() > 0);
+        assertNotEquals(refreshToken, rotatedToken);
+
+        result = mvc.perform(post("/api/auth/refresh").contentType(
+                APPLICATION_JSON).content("{\"refreshToken\":\"" + refreshToken + "\"}")).andExpect(status().isUnauthorized()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("\"error\":\"refresh_token_reused\""));
+
+        mvc.perform(post("/api/auth/refresh").contentType(
+                APPLICATION_JSON).content("{\"refreshToken\":\"" + rotatedToken + "\"}")).andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/auth/refresh").contentType(
+                APPLICATION_JSON).content("{\"refreshToken\":\"unknown\"}")).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Tests that a password encoded with a lower BCrypt cost is encoded again with the current cost on login.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void loginRehashesPasswordTest() throws Exception {
+        mvc.perform(post("/api/auth/register").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(registerDTO))).andExpect(status().isOk());
+
+        userRepository.updatePassword("test", new BCryptPasswordEncoder(4).encode("test"));
+        entityManager.clear();
+
+        mvc.perform(post("/api/auth/login").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(loginDTO))).andExpect(status().isOk());
+        entityManager.clear();
+
+        String password = userRepository.findByUsername("test").orElseThrow().getPassword();
+        assertTrue(password.startsWith("$2a$10$"));
+
+        mvc.perform(post("/api/auth/login").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(loginDTO))).andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that /login reads the user with a single narrow query.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void loginReadsUserOnceTest() throws Exception {
+        mvc.perform(post("/api/auth/register").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(registerDTO))).andExpect(status().isOk());
+
+        queryCounter.reset();
+        mvc.perform(post("/api/auth/login").contentType(
+                APPLICATION_JSON).content(objectMapper.writeValueAsString(loginDTO))).andExpect(status().isOk());
+
+        List<String> selects = queryCounter.getQueries().stream().filter(query -> query.startsWith("select")).toList();
+        assertEquals(1, selects.stream().filter(query -> query.contains(" users ")).count());
+        assertTrue(selects.stream().noneMatch(query -> query.contains("photo")));
+    }
+
     /**
      * Tests /login with a non-existing username.
      *
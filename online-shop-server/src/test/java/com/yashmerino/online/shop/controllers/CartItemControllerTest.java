@@ -23,6 +23,7 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.utils.QueryCounter;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -54,6 +55,12 @@ class CartItemControllerTest {
     @Autowired
     private MockMvc mvc;
 
+    /**
+     * Counter of the executed SQL statements.
+     */
+    @Autowired
+    private QueryCounter queryCounter;
+
     /**
      * Test get cart item.
      *
@@ -192,4 +199,47 @@ class CartItemControllerTest {
         String content1 = page1.getResponse().getContentAsString();
         assertTrue(content1.equals("{\"data\":[],\"currentPage\":1,\"totalPages\":1,\"totalItems\":1,\"pageSize\":1,\"totalPrice\":5.0,\"hasNext\":false,\"hasPrevious\":true}"));
     }
+
+    /**
+     * Test that the cart items endpoints stay within their query budgets.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void cartItemsQueryBudgetTest() throws Exception {
+        queryCounter.reset();
+        mvc.perform(get("/api/cartItem?username=user")).andExpect(status().isOk());
+        queryCounter.assertAtMost(3);
+
+        queryCounter.reset();
+        mvc.perform(get("/api/cartItem/1")).andExpect(status().isOk());
+        queryCounter.assertAtMost(1);
+    }
+
+    /**
+     * Test get cart items without totals.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void getCartItemsWithoutTotalTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/cartItem?username=user&includeTotal=false")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("{\"data\":[{\"id\":1,\"productId\":1,\"name\":\"Phone\",\"price\":5.0,\"cartId\":1,\"quantity\":1}],\"currentPage\":0,\"pageSize\":20,\"totalPrice\":5.0,\"hasNext\":false,\"hasPrevious\":false}"));
+    }
+
+    /**
+     * Test get cart items with sparse fields.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void getCartItemsWithFieldsTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/cartItem?username=user&fields=name,quantity")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("{\"data\":[{\"id\":1,\"name\":\"Phone\",\"quantity\":1}]"));
+    }
 }
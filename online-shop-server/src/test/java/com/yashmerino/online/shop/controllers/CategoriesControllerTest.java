@@ -23,6 +23,10 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.cache.CategoryCatalog;
+import com.yashmerino.online.shop.cache.ProductCache;
+import com.yashmerino.online.shop.model.Category;
+import com.yashmerino.online.shop.repositories.CategoryRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -33,9 +37,14 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -53,6 +62,24 @@ class CategoriesControllerTest {
     @Autowired
     private MockMvc mvc;
 
+    /**
+     * Categories' repository.
+     */
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /**
+     * Categories' catalog.
+     */
+    @Autowired
+    private CategoryCatalog categoryCatalog;
+
+    /**
+     * Product cache.
+     */
+    @Autowired
+    private ProductCache productCache;
+
     /**
      * Test get categories.
      *
@@ -65,4 +92,75 @@ class CategoriesControllerTest {
 
         assertTrue(result.getResponse().getContentAsString().contains("[{\"id\":1,\"name\":\"Digital Services\"},{\"id\":2,\"name\":\"Cosmetics and Body Care\"},{\"id\":3,\"name\":\"Food and Beverage\"},{\"id\":4,\"name\":\"Furniture and Decor\"},{\"id\":5,\"name\":\"Health and Wellness\"},{\"id\":6,\"name\":\"Household Items\"},{\"id\":7,\"name\":\"Media\"},{\"id\":8,\"name\":\"Pet Care\"},{\"id\":9,\"name\":\"Office Equipment\"}]"));
     }
+
+    /**
+     * Test get categories with a matching ETag.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void getCategoriesNotModifiedTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/categories")).andExpect(status().isOk()).andReturn();
+        String eTag = result.getResponse().getHeader("ETag");
+
+        result = mvc.perform(get("/api/categories").header("If-None-Match", eTag)).andExpect(status().isNotModified()).andReturn();
+
+        assertEquals(eTag, result.getResponse().getHeader("ETag"));
+        assertTrue(result.getResponse().getContentAsString().isEmpty());
+    }
+
+    /**
+     * Test refresh categories.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN", "USER"})
+    void refreshCategoriesTest() throws Exception {
+        String eTag = mvc.perform(get("/api/categories")).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+        MvcResult result = mvc.perform(post("/api/categories/refresh")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("{\"status\":200,\"message\":\"categories_refreshed_successfully\"}"));
+
+        result = mvc.perform(get("/api/categories").header("If-None-Match", eTag)).andExpect(status().isOk()).andReturn();
+
+        assertNotEquals(eTag, result.getResponse().getHeader("ETag"));
+        assertTrue(result.getResponse().getContentAsString().contains("{\"id\":9,\"name\":\"Office Equipment\"}"));
+    }
+
+    /**
+     * Test an unknown category is loaded alone, without flushing the cached products or changing the ETags.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void unknownCategoryIsLoadedAloneTest() throws Exception {
+        String eTag = mvc.perform(get("/api/categories")).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+        mvc.perform(get("/api/product/1")).andExpect(status().isOk());
+        assertNotNull(productCache.getIfPresent(1L));
+
+        Category toys = new Category();
+        toys.setName("Toys");
+        categoryRepository.save(toys);
+
+        assertEquals("Toys", categoryCatalog.getCategory(toys.getId()).getName());
+        assertNull(categoryCatalog.getCategory(Long.MAX_VALUE));
+
+        assertNotNull(productCache.getIfPresent(1L));
+        mvc.perform(get("/api/categories").header("If-None-Match", eTag)).andExpect(status().isNotModified());
+    }
+
+    /**
+     * Test refresh categories without admin role.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void refreshCategoriesWithUserRoleTest() throws Exception {
+        mvc.perform(post("/api/categories/refresh")).andExpect(status().isForbidden());
+    }
 }
@@ -23,31 +23,57 @@ package com.yashmerino.online.shop.controllers;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yashmerino.online.shop.cache.PhotoCache;
+import com.yashmerino.online.shop.exceptions.PhotoTooLargeException;
 import com.yashmerino.online.shop.model.Category;
 import com.yashmerino.online.shop.model.dto.ProductDTO;
+import com.yashmerino.online.shop.repositories.PhotoBlobRepository;
+import com.yashmerino.online.shop.storage.PhotoStorage;
+import com.yashmerino.online.shop.storage.PhotoSweeper;
+import com.yashmerino.online.shop.storage.StoredPhoto;
+import com.yashmerino.online.shop.utils.QueryCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -78,6 +104,36 @@ class ProductControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    /**
+     * Counter of the executed SQL statements.
+     */
+    @Autowired
+    private QueryCounter queryCounter;
+
+    /**
+     * Photo cache.
+     */
+    @Autowired
+    private PhotoCache photoCache;
+
+    /**
+     * Photo blobs' repository.
+     */
+    @Autowired
+    private PhotoBlobRepository photoBlobRepository;
+
+    /**
+     * Photo sweeper.
+     */
+    @Autowired
+    private PhotoSweeper photoSweeper;
+
+    /**
+     * Photo storage.
+     */
+    @Autowired
+    private PhotoStorage photoStorage;
+
     @BeforeEach
     void setup() {
         productDTO.setName("Product");
@@ -160,6 +216,30 @@ class ProductControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains("[{\"objectID\":\"1\",\"name\":\"Phone\",\"price\":5.0,\"categories\":[],\"description\":null},{\"objectID\":\"2\",\"name\":\"Laptop\",\"price\":3.0,\"categories\":[],\"description\":null},{\"objectID\":\"3\",\"name\":\"Product\",\"price\":2.5,\"categories\":[],\"description\":null},{\"objectID\":\"4\",\"name\":\"Banana\",\"price\":1.25,\"categories\":[],\"description\":null}]"));
     }
 
+    /**
+     * Test get all products returns the categories of every product.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsWithCategoriesTest() throws Exception {
+        Category digitalServices = new Category();
+        digitalServices.setId(1L);
+        digitalServices.setName("Digital Services");
+
+        productDTO.setCategories(new HashSet<>(List.of(digitalServices)));
+
+        mvc.perform(post("/api/product")
+                .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                        APPLICATION_JSON)).andExpect(status().isOk());
+
+        MvcResult result = mvc.perform(get("/api/product")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("{\"objectID\":\"1\",\"name\":\"Phone\",\"price\":5.0,\"categories\":[],\"description\":null}"));
+        assertTrue(result.getResponse().getContentAsString().contains("{\"objectID\":\"3\",\"name\":\"Product\",\"price\":2.5,\"categories\":[{\"id\":1,\"name\":\"Digital Services\"}],\"description\":null}"));
+    }
+
     /**
      * Test add product to cart.
      *
@@ -443,6 +523,22 @@ class ProductControllerTest {
         assertEquals(31163, result.getResponse().getContentAsString().length());
     }
 
+    /**
+     * Tests that loading a product doesn't read its photo and that a product without a photo returns no content.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getProductWithoutLoadingPhotoTest() throws Exception {
+        queryCounter.reset();
+        mvc.perform(get("/api/product/1")).andExpect(status().isOk());
+        assertTrue(queryCounter.getQueries().stream().noneMatch(query -> query.contains("photo")));
+
+        MvcResult result = mvc.perform(get("/api/product/2/photo")).andExpect(status().isOk()).andReturn();
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+    }
+
     /**
      * Tests get seller's photo.
      *
@@ -626,4 +722,712 @@ class ProductControllerTest {
         assertFalse(content2.contains("Phone"));
         assertFalse(content2.contains("Laptop"));
     }
+
+    /**
+     * Test cursor pagination walks through all the products.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void productCursorPaginationTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product?after=&size=1")).andExpect(status().isOk()).andReturn();
+        JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("1", page.get("data").get(0).get("objectID").asText());
+        assertTrue(page.get("hasNext").asBoolean());
+        assertFalse(page.has("totalItems"));
+
+        result = mvc.perform(get("/api/product?size=1&after=" + page.get("nextCursor").asText())).andExpect(status().isOk()).andReturn();
+        page = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("2", page.get("data").get(0).get("objectID").asText());
+        assertFalse(page.get("hasNext").asBoolean());
+        assertTrue(page.get("nextCursor").isNull());
+    }
+
+    /**
+     * Test cursor pagination ordered by price.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void productCursorPaginationByPriceTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product/seller/seller?after=&size=1&sort=price")).andExpect(status().isOk()).andReturn();
+        JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("1", page.get("data").get(0).get("objectID").asText());
+        assertFalse(page.get("hasNext").asBoolean());
+
+        result = mvc.perform(get("/api/product?after=&size=1&sort=price")).andExpect(status().isOk()).andReturn();
+        page = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("Laptop", page.get("data").get(0).get("name").asText());
+
+        result = mvc.perform(get("/api/product?size=1&after=" + page.get("nextCursor").asText())).andExpect(status().isOk()).andReturn();
+        page = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("Phone", page.get("data").get(0).get("name").asText());
+        assertFalse(page.get("hasNext").asBoolean());
+    }
+
+    /**
+     * Test cursor pagination ordered by price, descending, continues the first page.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void productCursorPaginationByPriceDescendingTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product?after=&size=1&sort=price,desc")).andExpect(status().isOk()).andReturn();
+        JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("Phone", page.get("data").get(0).get("name").asText());
+        assertTrue(page.get("hasNext").asBoolean());
+
+        result = mvc.perform(get("/api/product?size=1&after=" + page.get("nextCursor").asText())).andExpect(status().isOk()).andReturn();
+        page = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals("Laptop", page.get("data").get(0).get("name").asText());
+        assertFalse(page.get("hasNext").asBoolean());
+    }
+
+    /**
+     * Test cursor pagination with a malformed cursor.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void productCursorPaginationInvalidCursorTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product?after=ERROR")).andExpect(status().isBadRequest()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains(",\"status\":400,\"error\":\"invalid_cursor\"}"));
+    }
+
+    /**
+     * Test repeated product reads are served from the product cache.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getProductIsCachedTest() throws Exception {
+        mvc.perform(get("/api/product/1")).andExpect(status().isOk());
+        mvc.perform(get("/api/product/1")).andExpect(status().isOk());
+
+        MvcResult result = mvc.perform(get("/actuator/metrics/cache.gets?tag=cache:products&tag=result:hit")
+                .with(user("admin").authorities(new SimpleGrantedAuthority("ADMIN")))).andExpect(status().isOk()).andReturn();
+        JsonNode metric = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertEquals(1.0, metric.get("measurements").get(0).get("value").asDouble());
+    }
+
+    /**
+     * Test get product with a matching ETag.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getProductNotModifiedTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product/1")).andExpect(status().isOk()).andReturn();
+        String eTag = result.getResponse().getHeader("ETag");
+
+        assertTrue(eTag.startsWith("\"product-1-"));
+
+        result = mvc.perform(get("/api/product/1").header("If-None-Match", eTag)).andExpect(status().isNotModified()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().isEmpty());
+
+        productDTO.setName("Android");
+        productDTO.setPrice(2.5);
+
+        mvc.perform(put("/api/product/1")
+                .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                        APPLICATION_JSON)).andExpect(status().isOk());
+
+        result = mvc.perform(get("/api/product/1").header("If-None-Match", eTag)).andExpect(status().isOk()).andReturn();
+
+        assertNotEquals(eTag, result.getResponse().getHeader("ETag"));
+    }
+
+    /**
+     * Test get all products with a matching ETag, the ETag changes when a product is added.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsNotModifiedTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product")).andExpect(status().isOk()).andReturn();
+        String eTag = result.getResponse().getHeader("ETag");
+
+        mvc.perform(get("/api/product").header("If-None-Match", eTag)).andExpect(status().isNotModified());
+
+        mvc.perform(post("/api/product")
+                .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                        APPLICATION_JSON)).andExpect(status().isOk());
+
+        result = mvc.perform(get("/api/product").header("If-None-Match", eTag)).andExpect(status().isOk()).andReturn();
+
+        assertNotEquals(eTag, result.getResponse().getHeader("ETag"));
+    }
+
+    /**
+     * Test update product with a stale If-Match header.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void updateProductWithStaleIfMatchTest() throws Exception {
+        String eTag = mvc.perform(get("/api/product/1")).andExpect(status().isOk()).andReturn().getResponse().getHeader("ETag");
+
+        productDTO.setName("Android");
+        productDTO.setPrice(2.5);
+
+        MvcResult result = mvc.perform(put("/api/product/1").header("If-Match", eTag)
+                .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                        APPLICATION_JSON)).andExpect(status().isOk()).andReturn();
+
+        assertNotEquals(eTag, result.getResponse().getHeader("ETag"));
+
+        productDTO.setName("iPhone");
+
+        result = mvc.perform(put("/api/product/1").header("If-Match", eTag)
+                .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                        APPLICATION_JSON)).andExpect(status().isPreconditionFailed()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains(",\"status\":412,\"error\":\"product_modified\"}"));
+
+        result = mvc.perform(get("/api/product/1")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"name\":\"Android\""));
+    }
+
+    /**
+     * Test that the product endpoints stay within their query budgets regardless of the number of products.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void productsQueryBudgetTest() throws Exception {
+        Category digitalServices = new Category();
+        digitalServices.setId(1L);
+        digitalServices.setName("Digital Services");
+
+        Category media = new Category();
+        media.setId(7L);
+        media.setName("Media");
+
+        productDTO.setCategories(new HashSet<>(List.of(digitalServices, media)));
+
+        for (int i = 0; i < 5; i++) {
+            mvc.perform(post("/api/product")
+                    .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                            APPLICATION_JSON)).andExpect(status().isOk());
+        }
+
+        queryCounter.reset();
+        mvc.perform(get("/api/product")).andExpect(status().isOk());
+        queryCounter.assertAtMost(3);
+
+        queryCounter.reset();
+        mvc.perform(get("/api/product?after=")).andExpect(status().isOk());
+        queryCounter.assertAtMost(2);
+
+        queryCounter.reset();
+        mvc.perform(get("/api/product/seller/seller")).andExpect(status().isOk());
+        queryCounter.assertAtMost(4);
+
+        queryCounter.reset();
+        mvc.perform(get("/api/product/3")).andExpect(status().isOk());
+        queryCounter.assertAtMost(1);
+    }
+
+    /**
+     * Test get all products without totals.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsWithoutTotalTest() throws Exception {
+        queryCounter.reset();
+        MvcResult result = mvc.perform(get("/api/product?includeTotal=false&size=1")).andExpect(status().isOk()).andReturn();
+        queryCounter.assertAtMost(2);
+
+        String content = result.getResponse().getContentAsString();
+
+        assertFalse(content.contains("totalItems"));
+        assertFalse(content.contains("totalPages"));
+        assertTrue(content.contains("\"pageSize\":1,\"totalPrice\":0.0,\"hasNext\":true,\"hasPrevious\":false"));
+    }
+
+    /**
+     * Test approximate totals follow product inserts and deletes.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsApproxTotalTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product?includeTotal=approx&size=1")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"totalPages\":2,\"totalItems\":2"));
+
+        result = mvc.perform(get("/api/product/seller/seller?includeTotal=approx&size=1")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"totalPages\":1,\"totalItems\":1"));
+
+        mvc.perform(post("/api/product")
+                .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                        APPLICATION_JSON)).andExpect(status().isOk());
+
+        queryCounter.reset();
+        result = mvc.perform(get("/api/product?includeTotal=approx&size=1")).andExpect(status().isOk()).andReturn();
+        queryCounter.assertAtMost(2);
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"totalPages\":3,\"totalItems\":3"));
+
+        result = mvc.perform(get("/api/product/seller/seller?includeTotal=approx&size=1")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"totalPages\":2,\"totalItems\":2"));
+
+        mvc.perform(delete("/api/product/1")).andExpect(status().isOk());
+
+        result = mvc.perform(get("/api/product/seller/seller?includeTotal=approx&size=1")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"totalPages\":1,\"totalItems\":1"));
+    }
+
+    /**
+     * Test get all products with an unknown total mode.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsInvalidIncludeTotalTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product?includeTotal=maybe")).andExpect(status().isBadRequest()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"error\":\"invalid_include_total\""));
+    }
+
+    /**
+     * Test batch product lookup.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void getProductsBatchTest() throws Exception {
+        queryCounter.reset();
+        MvcResult result = mvc.perform(get("/api/product/batch?ids=2,99,1,2")).andExpect(status().isOk()).andReturn();
+        queryCounter.assertAtMost(1);
+
+        assertTrue(result.getResponse().getContentAsString().contains("{\"data\":[{\"objectID\":\"2\",\"name\":\"Laptop\",\"price\":3.0,\"categories\":[],\"description\":null},{\"objectID\":\"1\",\"name\":\"Phone\",\"price\":5.0,\"categories\":[],\"description\":null}],\"missingIds\":[99]}"));
+
+        queryCounter.reset();
+        result = mvc.perform(post("/api/product/batch")
+                .content("{\"ids\":[1,2]}").contentType(
+                        APPLICATION_JSON)).andExpect(status().isOk()).andReturn();
+        queryCounter.assertAtMost(0);
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"missingIds\":[]"));
+    }
+
+    /**
+     * Test batch product lookup with too many ids.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void getProductsBatchTooManyIdsTest() throws Exception {
+        List<Long> ids = new ArrayList<>();
+
+        for (long id = 1; id <= 101; id++) {
+            ids.add(id);
+        }
+
+        MvcResult result = mvc.perform(post("/api/product/batch")
+                .content("{\"ids\":" + ids + "}").contentType(
+                        APPLICATION_JSON)).andExpect(status().isBadRequest()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"error\":\"too_many_ids\""));
+    }
+
+    /**
+     * Test get all products with sparse fields.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsWithFieldsTest() throws Exception {
+        queryCounter.reset();
+        MvcResult result = mvc.perform(get("/api/product?fields=name,price")).andExpect(status().isOk()).andReturn();
+        // Page and count, the categories aren't requested so they aren't loaded.
+        queryCounter.assertAtMost(2);
+
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("{\"objectID\":\"1\",\"name\":\"Phone\",\"price\":5.0}"));
+        assertFalse(content.contains("description"));
+        assertFalse(content.contains("categories"));
+
+        result = mvc.perform(get("/api/product/1?fields=name")).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"objectID\":\"1\",\"name\":\"Phone\"}", result.getResponse().getContentAsString());
+    }
+
+    /**
+     * Test get all products with an unknown field.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsInvalidFieldsTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product?fields=name,photo")).andExpect(status().isBadRequest()).andReturn();
+
+        assertTrue(result.getResponse().getContentAsString().contains("\"error\":\"invalid_fields\""));
+    }
+
+    /**
+     * Test get all products filtered by category and price.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getAllProductsFilteredTest() throws Exception {
+        Category media = new Category();
+        media.setId(7L);
+        media.setName("Media");
+
+        productDTO.setCategories(new HashSet<>(List.of(media)));
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/api/product")
+                    .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                            APPLICATION_JSON)).andExpect(status().isOk());
+        }
+
+        MvcResult result = mvc.perform(get("/api/product?category=7&minPrice=2&maxPrice=3")).andExpect(status().isOk()).andReturn();
+        String content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("\"totalItems\":2"));
+        assertFalse(content.contains("Phone"));
+
+        result = mvc.perform(get("/api/product?minPrice=4")).andExpect(status().isOk()).andReturn();
+        content = result.getResponse().getContentAsString();
+        assertTrue(content.contains("\"totalItems\":1"));
+        assertTrue(content.contains("Phone"));
+
+        result = mvc.perform(get("/api/product?after=&category=7&maxPrice=1")).andExpect(status().isOk()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("\"data\":[]"));
+
+        result = mvc.perform(get("/api/product?minPrice=4&maxPrice=3")).andExpect(status().isBadRequest()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("\"error\":\"invalid_price_range\""));
+    }
+
+    /**
+     * Test get the number of products per category.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "seller", authorities = {"SELLER"})
+    void getCategoryFacetsTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product/facets")).andExpect(status().isOk()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("{\"id\":7,\"name\":\"Media\",\"count\":0}"));
+
+        queryCounter.reset();
+        mvc.perform(get("/api/product/facets")).andExpect(status().isOk());
+        queryCounter.assertAtMost(0);
+
+        Category media = new Category();
+        media.setId(7L);
+        media.setName("Media");
+
+        productDTO.setCategories(new HashSet<>(List.of(media)));
+        mvc.perform(post("/api/product")
+                .content(objectMapper.writeValueAsString(productDTO)).contentType(
+                        APPLICATION_JSON)).andExpect(status().isOk());
+
+        result = mvc.perform(get("/api/product/facets")).andExpect(status().isOk()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("{\"id\":7,\"name\":\"Media\",\"count\":1}"));
+    }
+
+    /**
+     * Tests that an uploaded photo is served from the photo storage and identical photos are stored once.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "anotherSeller", authorities = {"SELLER"})
+    void setProductPhotoStoredByHashTest() throws Exception {
+        byte[] content = Files.readAllBytes(Path.of("src/test/resources/photos/photo.jpg"));
+        MockMultipartFile photo = new MockMultipartFile("photo", "photo.jpg", MediaType.MULTIPART_FORM_DATA_VALUE, content);
+
+        mvc.perform(multipart("/api/product/2/photo").file(photo)).andExpect(status().isOk());
+
+        MvcResult result = mvc.perform(get("/api/product/2/photo")).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertTrue(Files.isRegularFile(Path.of("target/photos", hash.substring(0, 2), hash.substring(2, 4), hash)));
+    }
+
+    /**
+     * Tests the caching headers and the conditional and range requests of the product's photo.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void getProductPhotoCachingAndRangeTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/product/1/photo")).andExpect(status().isOk()).andReturn();
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        String hash = eTag.replace("\"", "");
+
+        // The fixture is a PNG despite its extension, the type is sniffed from the content.
+        assertEquals(MediaType.IMAGE_PNG_VALUE, result.getResponse().getContentType());
+        assertTrue(result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL).contains("no-cache"));
+
+        mvc.perform(get("/api/product/1/photo").header(HttpHeaders.IF_NONE_MATCH, eTag)).andExpect(status().isNotModified());
+
+        result = mvc.perform(get("/api/product/1/photo?v=" + hash)).andExpect(status().isOk()).andReturn();
+        assertEquals("max-age=31536000, public, immutable", result.getResponse().getHeader(HttpHeaders.CACHE_CONTROL));
+
+        result = mvc.perform(get("/api/product/1/photo").header(HttpHeaders.RANGE, "bytes=0-9")).andExpect(status().isPartialContent()).andReturn();
+        assertEquals(10, result.getResponse().getContentAsByteArray().length);
+        assertEquals("bytes 0-9/31163", result.getResponse().getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    /**
+     * Tests that a requested photo is cached and the next requests, including ranges, are served from the cache.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void getProductPhotoFromCacheTest() throws Exception {
+        byte[] content = Files.readAllBytes(Path.of("src/test/resources/photos/photo.jpg"));
+
+        MvcResult result = mvc.perform(get("/api/product/1/photo")).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+        assertEquals(1, photoCache.size());
+        assertEquals(content.length, photoCache.usedBytes());
+
+        result = mvc.perform(get("/api/product/1/photo")).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+        assertEquals(MediaType.IMAGE_PNG_VALUE, result.getResponse().getContentType());
+
+        result = mvc.perform(get("/api/product/1/photo").header(HttpHeaders.RANGE, "bytes=10-19")).andExpect(status().isPartialContent()).andReturn();
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), result.getResponse().getContentAsByteArray());
+
+        assertEquals(1, photoCache.size());
+        assertEquals(2.0 / 3, photoCache.hitRatio(), 0.001);
+    }
+
+    /**
+     * Tests that the requested sizes served by the same thumbnail share one cache entry.
+     */
+    @Test
+    void photoCacheKeysByThumbnailSizeTest() {
+        String hash = "0".repeat(64);
+        byte[] thumbnail = {1, 2, 3};
+
+        photoCache.get(hash, 10, () -> new StoredPhoto(hash, 64, new ByteArrayResource(thumbnail), MediaType.IMAGE_PNG, true));
+        StoredPhoto photo = photoCache.get(hash, 50, () -> {
+            throw new AssertionError("The thumbnail should be served from the cache.");
+        });
+
+        assertEquals(64, photo.size());
+        assertEquals(1, photoCache.size());
+        assertEquals(thumbnail.length, photoCache.usedBytes());
+    }
+
+    /**
+     * Tests that thumbnails are generated for an uploaded photo and the nearest size is served.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "anotherSeller", authorities = {"SELLER"})
+    void getProductPhotoThumbnailTest() throws Exception {
+        byte[] content = Files.readAllBytes(Path.of("src/test/resources/photos/photo.jpg"));
+        MockMultipartFile photo = new MockMultipartFile("photo", "photo.jpg", MediaType.MULTIPART_FORM_DATA_VALUE, content);
+
+        mvc.perform(multipart("/api/product/2/photo").file(photo)).andExpect(status().isOk());
+
+        // The thumbnails are generated in the background, the original is served until they are ready.
+        MvcResult result = mvc.perform(get("/api/product/2/photo?size=64")).andExpect(status().isOk()).andReturn();
+
+        for (int i = 0; i < 100 && !result.getResponse().getHeader(HttpHeaders.ETAG).endsWith("-64\""); i++) {
+            Thread.sleep(100);
+            result = mvc.perform(get("/api/product/2/photo?size=64")).andExpect(status().isOk()).andReturn();
+        }
+
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(64, thumbnail.getWidth());
+        assertEquals(64, thumbnail.getHeight());
+
+        // The photo is 256 pixels wide, so no bigger thumbnail is generated and the original is served.
+        result = mvc.perform(get("/api/product/2/photo?size=200")).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+
+        mvc.perform(get("/api/product/2/photo?size=0")).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that a photo sent as the raw request body is streamed to the photo storage.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "anotherSeller", authorities = {"SELLER"})
+    void uploadProductPhotoTest() throws Exception {
+        byte[] content = Files.readAllBytes(Path.of("src/test/resources/photos/photo.jpg"));
+
+        MvcResult result = mvc.perform(put("/api/product/2/photo").contentType(MediaType.IMAGE_PNG).content(content)).andExpect(status().isOk()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("{\"status\":200,\"message\":\"product_photo_updated_successfully\"}"));
+
+        result = mvc.perform(get("/api/product/2/photo")).andExpect(status().isOk()).andReturn();
+        assertArrayEquals(content, result.getResponse().getContentAsByteArray());
+    }
+
+    /**
+     * Tests that uploaded photos with an unsupported type or too many bytes or pixels are rejected.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "anotherSeller", authorities = {"SELLER"})
+    void uploadProductPhotoRejectedTest() throws Exception {
+        // The declared type isn't trusted, the content is checked.
+        MvcResult result = mvc.perform(put("/api/product/2/photo").contentType(MediaType.IMAGE_PNG).content("not a photo".getBytes())).andExpect(status().isUnsupportedMediaType()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("unsupported_photo_type"));
+
+        MockMultipartFile text = new MockMultipartFile("photo", "photo.jpg", MediaType.MULTIPART_FORM_DATA_VALUE, "not a photo".getBytes());
+        mvc.perform(multipart("/api/product/2/photo").file(text)).andExpect(status().isUnsupportedMediaType());
+
+        byte[] tooLarge = Arrays.copyOf(Files.readAllBytes(Path.of("src/test/resources/photos/photo.jpg")), 65 * 1024);
+        result = mvc.perform(put("/api/product/2/photo").contentType(MediaType.IMAGE_PNG).content(tooLarge)).andExpect(status().isPayloadTooLarge()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("photo_too_large"));
+
+        ByteArrayOutputStream tooManyPixels = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1100, 1000, BufferedImage.TYPE_INT_RGB), "png", tooManyPixels);
+        result = mvc.perform(put("/api/product/2/photo").contentType(MediaType.IMAGE_PNG).content(tooManyPixels.toByteArray())).andExpect(status().isPayloadTooLarge()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("photo_too_many_pixels"));
+
+        // Rejected uploads don't leave temporary files behind.
+        try (Stream<Path> files = Files.list(Path.of("target/photos"))) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    /**
+     * Tests that a photo declaring too many pixels in its header is rejected before its body is read.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void uploadPhotoTooManyPixelsRejectedEarlyTest() throws Exception {
+        ByteBuffer ihdr = ByteBuffer.allocate(17).put("IHDR".getBytes()).putInt(30000).putInt(30000).put(new byte[]{8, 2, 0, 0, 0});
+        CRC32 crc = new CRC32();
+        crc.update(ihdr.array());
+
+        ByteBuffer header = ByteBuffer.allocate(33).put(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'})
+                .putInt(13).put(ihdr.array()).putInt((int) crc.getValue());
+        byte[] content = Arrays.copyOf(header.array(), 1024 * 1024);
+        ByteArrayInputStream input = new ByteArrayInputStream(content);
+
+        PhotoTooLargeException e = assertThrows(PhotoTooLargeException.class, () -> photoStorage.upload(input, -1));
+
+        assertEquals("photo_too_many_pixels", e.getMessage());
+        assertTrue(input.available() >= content.length - 64 * 1024);
+    }
+
+    /**
+     * Tests that identical photos are counted once and that the sweep deletes the photos that aren't referenced anymore.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "anotherSeller", authorities = {"SELLER"})
+    void photoDeduplicationAndSweepTest() throws Exception {
+        byte[] fixture = Files.readAllBytes(Path.of("src/test/resources/photos/photo.jpg"));
+        byte[] first = generatePhoto(Color.RED);
+        byte[] second = generatePhoto(Color.BLUE);
+
+        // The fixture is already the photo of the user and of the first product.
+        mvc.perform(put("/api/product/2/photo").contentType(MediaType.IMAGE_PNG).content(fixture)).andExpect(status().isOk());
+        assertEquals(3, photoBlobRepository.findById(sha256(fixture)).orElseThrow().getReferenceCount());
+
+        mvc.perform(put("/api/product/2/photo").contentType(MediaType.IMAGE_PNG).content(first)).andExpect(status().isOk());
+        mvc.perform(put("/api/product/2/photo").contentType(MediaType.IMAGE_PNG).content(second)).andExpect(status().isOk());
+        assertEquals(2, photoBlobRepository.findById(sha256(fixture)).orElseThrow().getReferenceCount());
+        assertEquals(0, photoBlobRepository.findById(sha256(first)).orElseThrow().getReferenceCount());
+
+        photoSweeper.sweep();
+
+        assertFalse(Files.exists(photoPath(first)));
+        assertTrue(photoBlobRepository.findById(sha256(first)).isEmpty());
+        assertTrue(Files.exists(photoPath(second)));
+        assertTrue(Files.exists(photoPath(fixture)));
+
+        mvc.perform(delete("/api/product/2")).andExpect(status().isOk());
+        photoSweeper.sweep();
+
+        assertFalse(Files.exists(photoPath(second)));
+        assertTrue(Files.exists(photoPath(fixture)));
+    }
+
+    /**
+     * Generates a small PNG photo.
+     *
+     * @param color is the photo's color.
+     * @return the encoded photo.
+     * @throws IOException if the photo couldn't be encoded.
+     */
+    private static byte[] generatePhoto(Color color) throws IOException {
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, 10, 10);
+        graphics.dispose();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", output);
+
+        return output.toByteArray();
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 hash of a content.
+     *
+     * @param content is the content.
+     * @return the hash.
+     * @throws NoSuchAlgorithmException if SHA-256 isn't supported.
+     */
+    private static String sha256(byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    /**
+     * Returns the path of a stored photo.
+     *
+     * @param content is the photo's content.
+     * @return the photo's path.
+     * @throws NoSuchAlgorithmException if SHA-256 isn't supported.
+     */
+    private static Path photoPath(byte[] content) throws NoSuchAlgorithmException {
+        String hash = sha256(content);
+
+        return Path.of("target/photos", hash.substring(0, 2), hash.substring(2, 4), hash);
+    }
 }
@@ -33,6 +33,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
@@ -41,6 +42,8 @@ import org.springframework.test.web.servlet.MvcResult;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -96,6 +99,67 @@ class UserControllerTest {
         assertTrue(result.getResponse().getContentAsString().contains(",\"status\":404,\"error\":\"username_not_found\"}"));
     }
 
+    /**
+     * Tests that admins can import users with their password hashes, skipping the taken and repeated usernames.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void importUsersTest() throws Exception {
+        String passwordHash = new BCryptPasswordEncoder(4).encode("partner");
+        List<Map<String, String>> users = List.of(
+                Map.of("username", "partner1", "email", "partner1@test.test", "role", "USER", "passwordHash", passwordHash),
+                Map.of("username", "partner2", "email", "partner2@test.test", "role", "SELLER", "passwordHash", passwordHash),
+                Map.of("username", "partner1", "email", "partner1@test.test", "role", "USER", "passwordHash", passwordHash),
+                Map.of("username", "user", "email", "user@test.test", "role", "USER", "passwordHash", passwordHash));
+
+        MvcResult result = mvc.perform(post("/api/user/import").contentType(APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(users))).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"imported\":2,\"skipped\":2}", result.getResponse().getContentAsString());
+
+        result = mvc.perform(get("/api/user/partner2")).andExpect(status().isOk()).andReturn();
+        assertTrue(result.getResponse().getContentAsString().contains("\"name\":\"SELLER\""));
+
+        List<Map<String, String>> invalidUsers = List.of(
+                Map.of("username", "partner3", "email", "partner3@test.test", "role", "USER", "passwordHash", "partner"));
+        mvc.perform(post("/api/user/import").contentType(APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(invalidUsers))).andExpect(status().isBadRequest());
+
+        mvc.perform(post("/api/auth/login").contentType(APPLICATION_JSON)
+                .content("{\"username\":\"partner1\",\"password\":\"partner\"}")).andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that imported usernames that differ only by case from a taken or an imported username are skipped.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "admin", authorities = {"ADMIN"})
+    void importUsersIgnoresCaseTest() throws Exception {
+        String passwordHash = new BCryptPasswordEncoder(4).encode("partner");
+        List<Map<String, String>> users = List.of(
+                Map.of("username", "USER", "email", "user@test.test", "role", "USER", "passwordHash", passwordHash),
+                Map.of("username", "partner", "email", "partner@test.test", "role", "USER", "passwordHash", passwordHash),
+                Map.of("username", "Partner", "email", "partner@test.test", "role", "USER", "passwordHash", passwordHash));
+
+        MvcResult result = mvc.perform(post("/api/user/import").contentType(APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(users))).andExpect(status().isOk()).andReturn();
+        assertEquals("{\"imported\":1,\"skipped\":2}", result.getResponse().getContentAsString());
+    }
+
+    /**
+     * Tests that only admins can import users.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    @WithMockUser(username = "user", authorities = {"USER"})
+    void importUsersWrongRoleTest() throws Exception {
+        mvc.perform(post("/api/user/import").contentType(APPLICATION_JSON).content("[]")).andExpect(status().isForbidden());
+    }
+
     /**
      * Tests set user's photo.
      *
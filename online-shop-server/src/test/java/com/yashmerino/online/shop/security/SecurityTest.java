@@ -24,14 +24,45 @@ package com.yashmerino.online.shop.security;
  + SOFTWARE.
  +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
 
+import com.yashmerino.online.shop.exceptions.ServerBusyException;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.yashmerino.online.shop.utils.Role.ADMIN;
+import static com.yashmerino.online.shop.utils.Role.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -49,6 +80,18 @@ class SecurityTest {
     @Autowired
     private MockMvc mvc;
 
+    /**
+     * JWT provider.
+     */
+    @Autowired
+    private JwtProvider jwtProvider;
+
+    /**
+     * Password encoder, spied to make its pool saturated.
+     */
+    @SpyBean
+    private BoundedPasswordEncoder passwordEncoder;
+
     /**
      * Test that any endpoint and request that is not specified in {@link SecurityConfig}
      * is secured and throws unauthorized it requested without JWT Token.
@@ -59,4 +102,128 @@ class SecurityTest {
     void anyRequestIsSecuredTest() throws Exception {
         mvc.perform(delete("/api/auth/register")).andExpect(status().isUnauthorized());
     }
+
+    /**
+     * Tests that actuator's metrics are only readable by admins, while health stays public.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void actuatorMetricsAreSecuredTest() throws Exception {
+        mvc.perform(get("/actuator/metrics")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/metrics/jvm.memory.used")).andExpect(status().isUnauthorized());
+        mvc.perform(get("/actuator/metrics").with(user("user").authorities(new SimpleGrantedAuthority(USER.name()))))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/actuator/metrics").with(user("admin").authorities(new SimpleGrantedAuthority(ADMIN.name()))))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that an invalid token is ignored by the public routes and answered as a missing one by the protected routes.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void invalidTokenIsIgnoredTest() throws Exception {
+        mvc.perform(get("/api/user/user").header(AUTHORIZATION, "Bearer not.a.token")).andExpect(status().isOk());
+        mvc.perform(get("/api/auth/username-available").param("username", "user")
+                .header(AUTHORIZATION, "Bearer not.a.token")).andExpect(status().isOk());
+
+        mvc.perform(get("/api/categories").header(AUTHORIZATION, "Bearer not.a.token")).andExpect(status().isUnauthorized());
+    }
+
+    /**
+     * Tests that a token is verified once and its claims are returned from the cache afterwards,
+     * that the principal is built from its claims, while tampered tokens are rejected.
+     */
+    @Test
+    void verifiedTokenIsCachedTest() {
+        String token = jwtProvider.generateToken(new AuthenticatedUser(1L, 1L, 0, "user", "", List.of(new SimpleGrantedAuthority(USER.name()))));
+
+        Claims claims = jwtProvider.verify(token);
+        assertEquals("user", claims.getSubject());
+        assertSame(claims, jwtProvider.verify(token));
+
+        AuthenticatedUser user = jwtProvider.getPrincipal(claims);
+        assertEquals(1L, user.getId());
+        assertEquals(1L, user.getCartId());
+        assertEquals(List.of(new SimpleGrantedAuthority(USER.name())), List.copyOf(user.getAuthorities()));
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertThrows(AuthenticationCredentialsNotFoundException.class, () -> jwtProvider.verify(tampered));
+        assertThrows(AuthenticationCredentialsNotFoundException.class, () -> jwtProvider.verify("not.a.token"));
+    }
+
+    /**
+     * Tests that a saturated password hasher is answered with 503 both by the filter chain's authentication and by login.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void saturatedPasswordHasherAnswersServiceUnavailableTest() throws Exception {
+        doThrow(new ServerBusyException("server_busy")).when(passwordEncoder).matches(any(), any());
+
+        mvc.perform(get("/api/categories").with(httpBasic("user", "user")))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(RETRY_AFTER, "1"));
+
+        mvc.perform(post("/api/auth/login").contentType(APPLICATION_JSON).content("{\"username\":\"user\",\"password\":\"user\"}"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(RETRY_AFTER, "1"));
+    }
+
+    /**
+     * Tests that the password hasher rejects the hashes that don't fit in its queue instead of waiting.
+     *
+     * @throws Exception if something goes wrong.
+     */
+    @Test
+    void passwordHasherRejectsWhenSaturatedTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                return super.encode(rawPassword);
+            }
+        };
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder passwordEncoder = new BoundedPasswordEncoder(blockingEncoder, 1, 1, meterRegistry);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<String> running = callers.submit(() -> passwordEncoder.encode("running"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<String> queued = callers.submit(() -> passwordEncoder.encode("queued"));
+            while (meterRegistry.get("password.hasher.queue.size").gauge().value() < 1) {
+                Thread.sleep(10);
+            }
+
+            assertThrows(ServerBusyException.class, () -> passwordEncoder.encode("rejected"));
+            assertEquals(1, meterRegistry.get("password.hasher.rejected").counter().count());
+
+            release.countDown();
+            String runningHash = running.get(5, TimeUnit.SECONDS);
+            String queuedHash = queued.get(5, TimeUnit.SECONDS);
+
+            assertTrue(passwordEncoder.matches("running", runningHash));
+            assertTrue(passwordEncoder.matches("queued", queuedHash));
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            passwordEncoder.shutdown();
+        }
+    }
 }
@@ -27,10 +27,12 @@ package com.yashmerino.online.shop.utils;
 import com.yashmerino.online.shop.model.Role;
 import com.yashmerino.online.shop.model.*;
 import com.yashmerino.online.shop.repositories.*;
+import com.yashmerino.online.shop.storage.PhotoStorage;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
@@ -76,23 +78,44 @@ public class Initializer implements CommandLineRunner {
      */
     private final RoleRepository roleRepository;
 
+    /**
+     * Repository for products' photos.
+     */
+    private final ProductPhotoRepository productPhotoRepository;
+
+    /**
+     * Repository for users' photos.
+     */
+    private final UserPhotoRepository userPhotoRepository;
+
+    /**
+     * Photo storage.
+     */
+    private final PhotoStorage photoStorage;
+
     /**
      * Constructor.
      *
-     * @param userRepository     is the repository for customers.
-     * @param cartRepository     is the repository for carts.
-     * @param cartItemRepository is the repository for cart items.
-     * @param productRepository  is the repository for products.
-     * @param categoryRepository is the repository for categories.
-     * @param roleRepository     is the repository  for roles.
+     * @param userRepository         is the repository for customers.
+     * @param cartRepository         is the repository for carts.
+     * @param cartItemRepository     is the repository for cart items.
+     * @param productRepository      is the repository for products.
+     * @param categoryRepository     is the repository for categories.
+     * @param roleRepository         is the repository  for roles.
+     * @param productPhotoRepository is the repository for products' photos.
+     * @param userPhotoRepository    is the repository for users' photos.
+     * @param photoStorage           is the photo storage.
      */
-    public Initializer(UserRepository userRepository, CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository, CategoryRepository categoryRepository, RoleRepository roleRepository) {
+    public Initializer(UserRepository userRepository, CartRepository cartRepository, CartItemRepository cartItemRepository, ProductRepository productRepository, CategoryRepository categoryRepository, RoleRepository roleRepository, ProductPhotoRepository productPhotoRepository, UserPhotoRepository userPhotoRepository, PhotoStorage photoStorage) {
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.roleRepository = roleRepository;
+        this.productPhotoRepository = productPhotoRepository;
+        this.userPhotoRepository = userPhotoRepository;
+        this.photoStorage = photoStorage;
     }
 
     @Override
@@ -112,11 +135,14 @@ public class Initializer implements CommandLineRunner {
 
         roleRepository.save(sellerRole);
 
-        byte[] photo = Files.readAllBytes(Path.of("src/test/resources/photos/photo.jpg"));
+        String photo;
+
+        try (InputStream content = Files.newInputStream(Path.of("src/test/resources/photos/photo.jpg"))) {
+            photo = photoStorage.store(content);
+        }
 
         User user = new User();
         user.setId(1L);
-        user.setPhoto(photo);
         user.setUsername("user");
         user.setPassword("user");
         user.setRoles(new HashSet<>(Arrays.asList(userRole)));
@@ -132,6 +158,8 @@ public class Initializer implements CommandLineRunner {
         cart.setUser(user);
         cartRepository.save(cart);
 
+        userPhotoRepository.save(new UserPhoto(user.getId(), photo));
+
         User seller = new User();
         seller.setId(2L);
         seller.setUsername("seller");
@@ -148,12 +176,12 @@ public class Initializer implements CommandLineRunner {
 
         Product product = new Product();
         product.setId(1L);
-        product.setPhoto(photo);
         product.setUser(seller);
         product.setName("Phone");
         product.setPrice(5.0);
 
         productRepository.save(product);
+        productPhotoRepository.save(new ProductPhoto(product.getId(), photo));
 
         Product anotherProduct = new Product();
         anotherProduct.setId(2L);
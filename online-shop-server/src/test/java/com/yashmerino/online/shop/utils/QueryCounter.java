@@ -0,0 +1,135 @@
+package com.yashmerino.online.shop.utils;
+/*++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++
+ + MIT License
+ +
+ + Copyright (c) 2023 Artiom Bozieac
+ +
+ + Permission is hereby granted, free of charge, to any person obtaining a copy
+ + of this software and associated documentation files (the "Software"), to deal
+ + in the Software without restriction, including without limitation the rights
+ + to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ + copies of the Software, and to permit persons to whom the Software is
+ + furnished to do so, subject to the following conditions:
+ +
+ + The above copyright notice and this permission notice shall be included in all
+ + copies or substantial portions of the Software.
+ +
+ + THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ + IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ + FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ + AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ + LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ + OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ + SOFTWARE.
+ +++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++++*/
+
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wraps the test data source and records the executed SQL statements, so tests can declare a query budget per endpoint.
+ */
+@Component
+@Profile("test")
+public class QueryCounter implements BeanPostProcessor, QueryExecutionListener {
+
+    /**
+     * Statements executed since the last reset.
+     */
+    private final List<String> queries = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Wraps the data source with a proxy that reports every executed statement.
+     *
+     * @param bean     is the bean.
+     * @param beanName is the bean's name.
+     * @return the proxied data source or the same bean.
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .listener(this)
+                    .build();
+        }
+
+        return bean;
+    }
+
+    /**
+     * Does nothing before a statement is executed.
+     *
+     * @param execInfo      is the execution info.
+     * @param queryInfoList is the list of queries.
+     */
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Only executed statements are recorded.
+    }
+
+    /**
+     * Records an executed statement.
+     *
+     * @param execInfo      is the execution info.
+     * @param queryInfoList is the list of queries.
+     */
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        for (QueryInfo queryInfo : queryInfoList) {
+            queries.add(queryInfo.getQuery());
+        }
+    }
+
+    /**
+     * Forgets the recorded statements.
+     */
+    public void reset() {
+        queries.clear();
+    }
+
+    /**
+     * Returns the number of statements executed since the last reset.
+     *
+     * @return the number of statements.
+     */
+    public int getCount() {
+        return queries.size();
+    }
+
+    /**
+     * Returns the statements executed since the last reset.
+     *
+     * @return the statements' SQL.
+     */
+    public List<String> getQueries() {
+        synchronized (queries) {
+            return new ArrayList<>(queries);
+        }
+    }
+
+    /**
+     * Fails if more statements than the budget were executed since the last reset.
+     *
+     * @param budget is the maximum number of statements.
+     */
+    public void assertAtMost(int budget) {
+        synchronized (queries) {
+            if (queries.size() > budget) {
+                throw new AssertionError("Expected at most " + budget + " queries but " + queries.size() + " were executed:\n"
+                        + String.join("\n", queries));
+            }
+        }
+    }
+}